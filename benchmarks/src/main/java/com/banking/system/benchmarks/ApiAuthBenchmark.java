@@ -0,0 +1,92 @@
+package com.banking.system.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * API calls with real Basic credentials next to form logins, which share the
+ * password verify pool. Seven threads call /api/v1/accounts while one logs in,
+ * with the API credential cache off (a password check per call) and on. Every
+ * user calls once during setup. Refused API calls and failed logins are printed
+ * at the end of the trial.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class ApiAuthBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Bank {
+        @Param({"off", "on"})
+        public String credentialCache;
+
+        @Param("200")
+        public int users;
+
+        ConfigurableApplicationContext context;
+        MockMvc mockMvc;
+        final AtomicLong refused = new AtomicLong();
+        final AtomicLong failedLogins = new AtomicLong();
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            context = BankContext.start(
+                    "--app.api.credential-cache.ttl-seconds=" + ("on".equals(credentialCache) ? 60 : 0));
+            BankContext.seed(context, users, 1, 5);
+            mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+                    .apply(springSecurity())
+                    .build();
+            // One call each, as a polling client makes before it settles; with the cache on this is the only hash
+            for (int i = 0; i < users; i++) {
+                mockMvc.perform(get("/api/v1/accounts").with(httpBasic("user" + i, BankContext.PASSWORD)));
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            System.out.println();
+            System.out.println("Credential cache " + credentialCache + ": " + refused.get() + " API calls refused, "
+                    + failedLogins.get() + " logins failed");
+            context.close();
+        }
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(7)
+    public int api(Bank bank) throws Exception {
+        String username = "user" + ThreadLocalRandom.current().nextInt(bank.users);
+        int status = bank.mockMvc.perform(get("/api/v1/accounts").with(httpBasic(username, BankContext.PASSWORD)))
+                .andReturn().getResponse().getStatus();
+        if (status != 200) {
+            bank.refused.incrementAndGet();
+        }
+        return status;
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public String login(Bank bank) throws Exception {
+        String username = "user" + ThreadLocalRandom.current().nextInt(bank.users);
+        String location = bank.mockMvc.perform(formLogin("/login").user(username).password(BankContext.PASSWORD))
+                .andReturn().getResponse().getRedirectedUrl();
+        if (location == null || location.contains("error")) {
+            bank.failedLogins.incrementAndGet();
+        }
+        return location;
+    }
+}
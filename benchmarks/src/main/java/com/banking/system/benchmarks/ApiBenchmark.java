@@ -0,0 +1,112 @@
+package com.banking.system.benchmarks;
+
+import com.banking.system.config.BankUserDetails;
+import com.banking.system.entity.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * The same data served as the HTML dashboard and as JSON: a user's accounts plus
+ * the first history page of one of them. apiRevalidate repeats both JSON reads
+ * with the ETags from a previous response, as a polling client would.
+ * ApiControllerTest checks that those come back 304.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ApiBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Bank {
+        @Param("1000")
+        public int users;
+
+        @Param("2")
+        public int accountsPerUser;
+
+        @Param("50")
+        public int transactionsPerAccount;
+
+        ConfigurableApplicationContext context;
+        MockMvc mockMvc;
+        List<Long> userIds;
+        List<Long> accountIds;
+        String[] accountsEtags;
+        String[] historyEtags;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            context = BankContext.start();
+            BankContext.seed(context, users, accountsPerUser, transactionsPerAccount);
+            userIds = BankContext.userIds(context);
+            accountIds = BankContext.accountIds(context);
+            mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+                    .apply(springSecurity())
+                    .build();
+
+            accountsEtags = new String[users];
+            historyEtags = new String[users];
+            for (int i = 0; i < users; i++) {
+                accountsEtags[i] = mockMvc.perform(get("/api/v1/accounts").with(user(principal(this, i))))
+                        .andReturn().getResponse().getHeader("ETag");
+                historyEtags[i] = mockMvc.perform(get(historyUrl(this, i)).with(user(principal(this, i))))
+                        .andReturn().getResponse().getHeader("ETag");
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public int htmlDashboard(Bank bank) throws Exception {
+        int i = ThreadLocalRandom.current().nextInt(bank.users);
+        return bank.mockMvc.perform(get("/user/dashboard").with(user(principal(bank, i))))
+                .andReturn().getResponse().getContentAsByteArray().length;
+    }
+
+    @Benchmark
+    public int api(Bank bank) throws Exception {
+        int i = ThreadLocalRandom.current().nextInt(bank.users);
+        BankUserDetails principal = principal(bank, i);
+        return bank.mockMvc.perform(get("/api/v1/accounts").with(user(principal)))
+                .andReturn().getResponse().getContentAsByteArray().length
+                + bank.mockMvc.perform(get(historyUrl(bank, i)).with(user(principal)))
+                .andReturn().getResponse().getContentAsByteArray().length;
+    }
+
+    @Benchmark
+    public int apiRevalidate(Bank bank) throws Exception {
+        int i = ThreadLocalRandom.current().nextInt(bank.users);
+        BankUserDetails principal = principal(bank, i);
+        MockHttpServletResponse accounts = bank.mockMvc.perform(get("/api/v1/accounts").with(user(principal))
+                .header("If-None-Match", bank.accountsEtags[i])).andReturn().getResponse();
+        MockHttpServletResponse history = bank.mockMvc.perform(get(historyUrl(bank, i)).with(user(principal))
+                .header("If-None-Match", bank.historyEtags[i])).andReturn().getResponse();
+        return accounts.getStatus() + history.getStatus();
+    }
+
+    private static BankUserDetails principal(Bank bank, int i) {
+        return new BankUserDetails(bank.userIds.get(i), "user" + i, "", User.Role.USER);
+    }
+
+    // Seeded accounts are ordered by user, so user i's first account comes first in its block
+    private static String historyUrl(Bank bank, int i) {
+        return "/api/v1/accounts/" + bank.accountIds.get(i * bank.accountsPerUser) + "/transactions";
+    }
+}
@@ -0,0 +1,69 @@
+package com.banking.system.benchmarks;
+
+import com.banking.system.service.BalanceHistoryService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point-in-time balance lookups at random times within the seeded history, with
+ * the rows as seeded (no balance_after, so every lookup replays the account) and
+ * after the backfill has filled them in. The backfill itself is timed once during
+ * setup; BalanceHistoryServiceTest checks what it writes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BalanceHistoryBenchmark {
+    
+    @State(Scope.Benchmark)
+    public static class Bank {
+        @Param("200")
+        public int accounts;
+        
+        @Param("1000")
+        public int transactionsPerAccount;
+        
+        @Param({"false", "true"})
+        public boolean backfilled;
+        
+        ConfigurableApplicationContext context;
+        BalanceHistoryService balanceHistory;
+        List<Long> accountIds;
+        LocalDateTime now;
+        
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = BankContext.start();
+            BankContext.seed(context, accounts, 1, transactionsPerAccount);
+            balanceHistory = context.getBean(BalanceHistoryService.class);
+            accountIds = BankContext.accountIds(context);
+            now = LocalDateTime.now();
+            
+            if (backfilled) {
+                long start = System.currentTimeMillis();
+                long rows = balanceHistory.backfill();
+                System.out.println();
+                System.out.println("Backfilled " + rows + " rows in " + (System.currentTimeMillis() - start) + " ms");
+            }
+        }
+        
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+    
+    @Benchmark
+    public BigDecimal balanceAt(Bank bank) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Long accountId = bank.accountIds.get(random.nextInt(bank.accountIds.size()));
+        return bank.balanceHistory.getBalanceAt(accountId, bank.now.minusMinutes(random.nextInt(bank.transactionsPerAccount)));
+    }
+}
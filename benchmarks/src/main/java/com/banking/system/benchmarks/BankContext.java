@@ -0,0 +1,109 @@
+package com.banking.system.benchmarks;
+
+import com.banking.system.BankApplication;
+import com.banking.system.service.TransactionIdAllocator;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/**
+ * Boots the application against a private in-memory H2 database and seeds it.
+ * Seeded users are named user0..userN-1 with password "password".
+ */
+final class BankContext {
+    
+    static final String PASSWORD = "password";
+    private static final int BATCH_SIZE = 1000;
+    
+    private BankContext() {}
+    
+    static ConfigurableApplicationContext start(String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--server.port=0",
+                // No second listener; MetricsBenchmark scrapes the registry directly
+                "--management.server.port=-1",
+                "--spring.profiles.active=prod",
+                "--logging.file.name=",
+                "--logging.level.root=WARN",
+                "--logging.level.com.banking.system=WARN",
+                "--logging.level.org.springframework.security=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                "--app.audit.spool-dir=target/audit-spool-" + UUID.randomUUID(),
+                // Seeded rows have no balance_after; benchmarks that need it run the backfill themselves
+                "--app.balance-history.backfill-enabled=false"
+        ));
+        args.addAll(List.of(extraArgs));
+        return SpringApplication.run(BankApplication.class, args.toArray(String[]::new));
+    }
+    
+    static void seed(ConfigurableApplicationContext context, int users, int accountsPerUser, int transactionsPerAccount) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        String hash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+        
+        jdbc.batchUpdate("INSERT INTO users (username, password, role) VALUES (?, ?, 'USER')",
+                IntStream.range(0, users).boxed().toList(), BATCH_SIZE,
+                (ps, i) -> {
+                    ps.setString(1, "user" + i);
+                    ps.setString(2, hash);
+                });
+        
+        List<Long> userIds = jdbc.queryForList(
+                "SELECT id FROM users WHERE username LIKE 'user%' ORDER BY id", Long.class);
+        List<Object[]> accounts = new ArrayList<>();
+        for (Long userId : userIds) {
+            for (int a = 0; a < accountsPerUser; a++) {
+                accounts.add(new Object[] {"BENCH" + userId + "-" + a, new BigDecimal("1000000.00"), userId});
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO accounts (account_number, balance, user_id) VALUES (?, ?, ?)", accounts);
+        
+        List<Long> accountIds = jdbc.queryForList(
+                "SELECT id FROM accounts WHERE account_number LIKE 'BENCH%' ORDER BY id", Long.class);
+        TransactionIdAllocator idAllocator = context.getBean(TransactionIdAllocator.class);
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> transactions = new ArrayList<>(BATCH_SIZE);
+        for (Long accountId : accountIds) {
+            long[] ids = idAllocator.allocate(transactionsPerAccount);
+            for (int t = 0; t < transactionsPerAccount; t++) {
+                transactions.add(new Object[] {ids[t], new BigDecimal("10.00"), t % 2 == 0 ? "DEPOSIT" : "WITHDRAW",
+                        Timestamp.valueOf(now.minusMinutes(t)), accountId});
+                if (transactions.size() == BATCH_SIZE) {
+                    insertTransactions(jdbc, transactions);
+                }
+            }
+        }
+        insertTransactions(jdbc, transactions);
+    }
+    
+    static List<Long> accountIds(ConfigurableApplicationContext context) {
+        return context.getBean(JdbcTemplate.class).queryForList(
+                "SELECT id FROM accounts WHERE account_number LIKE 'BENCH%' ORDER BY id", Long.class);
+    }
+    
+    static List<Long> userIds(ConfigurableApplicationContext context) {
+        return context.getBean(JdbcTemplate.class).queryForList(
+                "SELECT id FROM users WHERE username LIKE 'user%' ORDER BY id", Long.class);
+    }
+    
+    private static void insertTransactions(JdbcTemplate jdbc, List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbc.batchUpdate("INSERT INTO transactions (id, amount, type, timestamp, account_id) VALUES (?, ?, ?, ?, ?)", rows);
+            rows.clear();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.banking.system.benchmarks;
+
+import com.banking.system.config.BankUserDetails;
+import com.banking.system.entity.User;
+import com.banking.system.service.AccountService;
+import com.banking.system.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Hibernate's second-level cache for User and Account and the query cache for
+ * findByUserId / findByUsername, on and off. SecondLevelCacheTest checks that no
+ * write path leaves a stale balance cached.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CacheBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Bank {
+        @Param({"off", "on"})
+        public String cache;
+
+        @Param("1000")
+        public int users;
+
+        ConfigurableApplicationContext context;
+        MockMvc mockMvc;
+        AccountService accountService;
+        UserService userService;
+        Statistics statistics;
+        List<Long> userIds;
+        List<Long> accountIds;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            boolean on = "on".equals(cache);
+            context = BankContext.start(
+                    "--spring.jpa.properties.hibernate.cache.use_second_level_cache=" + on,
+                    "--spring.jpa.properties.hibernate.cache.use_query_cache=" + on);
+            BankContext.seed(context, users, 2, 20);
+            userIds = BankContext.userIds(context);
+            accountIds = BankContext.accountIds(context);
+            accountService = context.getBean(AccountService.class);
+            userService = context.getBean(UserService.class);
+            statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+            mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+                    .apply(springSecurity())
+                    .build();
+            statistics.clear();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            System.out.println();
+            System.out.println("Second-level cache: " + statistics.getSecondLevelCacheHitCount() + " hits, "
+                    + statistics.getSecondLevelCacheMissCount() + " misses; query cache: "
+                    + statistics.getQueryCacheHitCount() + " hits, " + statistics.getQueryCacheMissCount() + " misses");
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public BigDecimal accountById(Bank bank) {
+        Long accountId = bank.accountIds.get(ThreadLocalRandom.current().nextInt(bank.accountIds.size()));
+        return bank.accountService.getAccountById(accountId).getBalance();
+    }
+
+    @Benchmark
+    public Long userByUsername(Bank bank) {
+        return bank.userService.getUserByUsername("user" + ThreadLocalRandom.current().nextInt(bank.users)).getId();
+    }
+
+    @Benchmark
+    public int userDashboard(Bank bank) throws Exception {
+        int i = ThreadLocalRandom.current().nextInt(bank.users);
+        BankUserDetails principal = new BankUserDetails(bank.userIds.get(i), "user" + i, "", User.Role.USER);
+        return bank.mockMvc.perform(get("/user/dashboard").with(user(principal)))
+                .andReturn().getResponse().getContentAsByteArray().length;
+    }
+}
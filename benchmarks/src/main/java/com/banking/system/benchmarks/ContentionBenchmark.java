@@ -0,0 +1,87 @@
+package com.banking.system.benchmarks;
+
+import com.banking.system.entity.Transaction;
+import com.banking.system.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deposits and withdrawals of 1.00 from many threads on balances that start at 5.00,
+ * spread over all accounts or all on one hot account. Compare the two for the cost of
+ * contention. AccountServiceConcurrencyTest and OptimisticRetryTest check the balances
+ * and the delete retries.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(8)
+public class ContentionBenchmark {
+
+    private static final BigDecimal START = new BigDecimal("5.00");
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @State(Scope.Benchmark)
+    public static class Bank {
+        @Param({"spread", "hot"})
+        public String target;
+
+        @Param("1000")
+        public int accounts;
+
+        ConfigurableApplicationContext context;
+        TransactionService transactionService;
+        List<Long> accountIds;
+        final AtomicLong deposits = new AtomicLong();
+        final AtomicLong withdrawals = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = BankContext.start();
+            BankContext.seed(context, accounts, 1, 0);
+            transactionService = context.getBean(TransactionService.class);
+            accountIds = BankContext.accountIds(context);
+            context.getBean(JdbcTemplate.class)
+                    .update("UPDATE accounts SET balance = ? WHERE account_number LIKE 'BENCH%'", START);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            System.out.println();
+            System.out.println("Deposits: " + deposits.get() + ", withdrawals: " + withdrawals.get()
+                    + ", rejected for insufficient balance: " + rejected.get());
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public Object depositOrWithdraw(Bank bank) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Long accountId = "hot".equals(bank.target)
+                ? bank.accountIds.get(0)
+                : bank.accountIds.get(random.nextInt(bank.accountIds.size()));
+        if (random.nextBoolean()) {
+            bank.deposits.incrementAndGet();
+            return bank.transactionService.createTransaction(accountId, AMOUNT, Transaction.TransactionType.DEPOSIT);
+        }
+        try {
+            Object posted = bank.transactionService.createTransaction(accountId, AMOUNT, Transaction.TransactionType.WITHDRAW);
+            bank.withdrawals.incrementAndGet();
+            return posted;
+        } catch (RuntimeException e) {
+            if (!"Insufficient balance".equals(e.getMessage())) {
+                throw e;
+            }
+            bank.rejected.incrementAndGet();
+            return e;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.banking.system.benchmarks;
+
+import com.banking.system.config.BankUserDetails;
+import com.banking.system.entity.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Renders the dashboards through the full MVC and security filter chain, without
+ * the network hop. Response size is returned so it is not optimized away.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DashboardBenchmark {
+    
+    @State(Scope.Benchmark)
+    public static class Bank {
+        @Param("1000")
+        public int users;
+        
+        @Param("2")
+        public int accountsPerUser;
+        
+        @Param("50")
+        public int transactionsPerAccount;
+        
+        ConfigurableApplicationContext context;
+        MockMvc mockMvc;
+        List<Long> userIds;
+        
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = BankContext.start();
+            BankContext.seed(context, users, accountsPerUser, transactionsPerAccount);
+            userIds = BankContext.userIds(context);
+            mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+                    .apply(springSecurity())
+                    .build();
+        }
+        
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+    
+    @Benchmark
+    public int userDashboard(Bank bank) throws Exception {
+        int i = ThreadLocalRandom.current().nextInt(bank.users);
+        BankUserDetails principal = new BankUserDetails(bank.userIds.get(i), "user" + i, "", User.Role.USER);
+        return bank.mockMvc.perform(get("/user/dashboard").with(user(principal)))
+                .andReturn().getResponse().getContentAsByteArray().length;
+    }
+    
+    @Benchmark
+    public int adminDashboard(Bank bank) throws Exception {
+        return bank.mockMvc.perform(get("/admin/dashboard").with(user("admin").roles("ADMIN")))
+                .andReturn().getResponse().getContentAsByteArray().length;
+    }
+}
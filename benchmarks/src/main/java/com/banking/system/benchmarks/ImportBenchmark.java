@@ -0,0 +1,69 @@
+package com.banking.system.benchmarks;
+
+import com.banking.system.dto.ImportResult;
+import com.banking.system.service.TransactionImportService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports a generated CSV file through the bulk import service. Each invocation
+ * posts the whole file, so it is measured in single-shot mode.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ImportBenchmark {
+    
+    @State(Scope.Benchmark)
+    public static class Bank {
+        @Param("1000000")
+        public int lines;
+        
+        @Param("100")
+        public int accounts;
+        
+        ConfigurableApplicationContext context;
+        TransactionImportService importService;
+        byte[] file;
+        
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = BankContext.start();
+            BankContext.seed(context, accounts, 1, 0);
+            importService = context.getBean(TransactionImportService.class);
+            
+            List<String> numbers = context.getBean(JdbcTemplate.class).queryForList(
+                    "SELECT account_number FROM accounts WHERE account_number LIKE 'BENCH%' ORDER BY id", String.class);
+            StringBuilder csv = new StringBuilder(lines * 32);
+            csv.append("account_number,type,amount\n");
+            for (int i = 0; i < lines; i++) {
+                csv.append(numbers.get(i % numbers.size()))
+                   .append(i % 2 == 0 ? ",DEPOSIT," : ",WITHDRAW,")
+                   .append(i % 500 + 1).append(".25\n");
+            }
+            file = csv.toString().getBytes(StandardCharsets.UTF_8);
+        }
+        
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+    
+    @Benchmark
+    public ImportResult importCsv(Bank bank) throws Exception {
+        // Only rejected lines are reported, so the report stays small
+        Writer report = new StringWriter();
+        return bank.importService.importTransactions(new ByteArrayInputStream(bank.file),
+                TransactionImportService.Format.CSV, report, true);
+    }
+}
@@ -0,0 +1,64 @@
+package com.banking.system.benchmarks;
+
+import com.banking.system.entity.Transaction;
+import com.banking.system.service.LedgerEngine;
+import com.banking.system.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Posts deposits to a small set of hot accounts through either the
+ * TransactionService path or the sharded ledger engine. Run with several
+ * threads (e.g. -t 32) to see the effect of row contention.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(16)
+public class LedgerBenchmark {
+    
+    @State(Scope.Benchmark)
+    public static class Bank {
+        @Param({"service", "ledger"})
+        public String path;
+        
+        @Param("8")
+        public int hotAccounts;
+        
+        ConfigurableApplicationContext context;
+        TransactionService transactionService;
+        LedgerEngine ledgerEngine;
+        List<Long> accountIds;
+        
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = BankContext.start("--app.ledger.enabled=" + path.equals("ledger"));
+            BankContext.seed(context, hotAccounts, 1, 0);
+            transactionService = context.getBean(TransactionService.class);
+            ledgerEngine = context.getBean(LedgerEngine.class);
+            accountIds = BankContext.accountIds(context);
+        }
+        
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+    
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+    
+    @Benchmark
+    public Object deposit(Bank bank) {
+        Long accountId = bank.accountIds.get(ThreadLocalRandom.current().nextInt(bank.accountIds.size()));
+        if (bank.ledgerEngine.handles(accountId)) {
+            return bank.ledgerEngine.apply(accountId, AMOUNT, Transaction.TransactionType.DEPOSIT);
+        }
+        return bank.transactionService.createTransaction(accountId, AMOUNT, Transaction.TransactionType.DEPOSIT);
+    }
+}
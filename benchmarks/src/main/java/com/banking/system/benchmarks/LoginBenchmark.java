@@ -0,0 +1,79 @@
+package com.banking.system.benchmarks;
+
+import com.banking.system.config.AdaptivePasswordEncoder;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Logins per second for each password setting, through the same authentication
+ * provider setup as the login form (user lookup, verification on the bounded
+ * pool, rehash). PasswordRehashTest checks the rehash itself. Logins per core are
+ * printed at the end of the trial, against the number of verification threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(8)
+public class LoginBenchmark {
+    
+    @State(Scope.Benchmark)
+    public static class Bank {
+        // bcrypt-<cost> or pbkdf2
+        @Param({"bcrypt-8", "bcrypt-10", "bcrypt-12", "pbkdf2"})
+        public String setting;
+        
+        @Param("200")
+        public int users;
+        
+        ConfigurableApplicationContext context;
+        DaoAuthenticationProvider provider;
+        int verifyThreads;
+        final AtomicLong logins = new AtomicLong();
+        long startNanos;
+        
+        @Setup(Level.Trial)
+        public void setUp() {
+            String algorithm = setting.startsWith("bcrypt") ? "bcrypt" : setting;
+            String strength = setting.startsWith("bcrypt-") ? setting.substring("bcrypt-".length()) : "10";
+            context = BankContext.start("--app.passwords.algorithm=" + algorithm,
+                    "--app.passwords.bcrypt-strength=" + strength);
+            BankContext.seed(context, users, 1, 0);
+            verifyThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+            
+            provider = new DaoAuthenticationProvider(context.getBean(AdaptivePasswordEncoder.class));
+            provider.setUserDetailsService(context.getBean(UserDetailsService.class));
+            provider.setUserDetailsPasswordService(context.getBean(UserDetailsPasswordService.class));
+            
+            logins.set(0);
+            startNanos = System.nanoTime();
+        }
+        
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            double perSecond = logins.get() / ((System.nanoTime() - startNanos) / 1e9);
+            System.out.println();
+            System.out.printf("%s: %.1f logins/s on %d verify threads, %.1f logins/s per core%n",
+                    setting, perSecond, verifyThreads, perSecond / verifyThreads);
+            context.close();
+        }
+    }
+    
+    @Benchmark
+    public Authentication login(Bank bank) {
+        String username = "user" + ThreadLocalRandom.current().nextInt(bank.users);
+        Authentication result = bank.provider.authenticate(
+                new UsernamePasswordAuthenticationToken(username, BankContext.PASSWORD));
+        bank.logins.incrementAndGet();
+        return result;
+    }
+}
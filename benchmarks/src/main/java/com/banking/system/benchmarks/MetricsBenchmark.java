@@ -0,0 +1,109 @@
+package com.banking.system.benchmarks;
+
+import com.banking.system.config.BankUserDetails;
+import com.banking.system.config.QueryCountFilter;
+import com.banking.system.entity.User;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import jakarta.servlet.Filter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.filter.ServerHttpObservationFilter;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Cost of the metrics themselves. Setup drives some traffic through the observation
+ * and query-count filters so the scrape has every series in it; MetricsRegistrationTest
+ * checks which series those are. Compare userDashboard with DashboardBenchmark for
+ * the per-request overhead.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class MetricsBenchmark {
+    
+    @State(Scope.Benchmark)
+    public static class Bank {
+        @Param("1000")
+        public int users;
+        
+        ConfigurableApplicationContext context;
+        PrometheusMeterRegistry registry;
+        MockMvc mockMvc;
+        List<Long> userIds;
+        List<Long> accountIds;
+        
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            context = BankContext.start();
+            BankContext.seed(context, users, 1, 20);
+            userIds = BankContext.userIds(context);
+            accountIds = BankContext.accountIds(context);
+            registry = context.getBean(PrometheusMeterRegistry.class);
+            mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+                    .addFilters(observationFilter(context), context.getBean(QueryCountFilter.class))
+                    .apply(springSecurity())
+                    .build();
+            
+            for (int i = 0; i < 100; i++) {
+                renderDashboard(this);
+            }
+            // Accounts are seeded with 1,000,000.00 so this is always rejected
+            BankUserDetails principal = new BankUserDetails(userIds.get(0), "user0", "", User.Role.USER);
+            mockMvc.perform(post("/transactions").with(user(principal)).with(csrf())
+                    .param("accountId", accountIds.get(0).toString())
+                    .param("amount", "2000000.00")
+                    .param("type", "WITHDRAW"));
+            
+            String scrape = registry.scrape();
+            System.out.println();
+            System.out.println("Scrape: " + scrape.length() + " bytes, "
+                    + scrape.lines().filter(line -> !line.startsWith("#")).count() + " samples");
+        }
+        
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+    
+    // Registered by Spring Boot as a FilterRegistrationBean rather than as a plain filter bean
+    private static Filter observationFilter(ConfigurableApplicationContext context) {
+        for (FilterRegistrationBean<?> registration : context.getBeansOfType(FilterRegistrationBean.class).values()) {
+            if (registration.getFilter() instanceof ServerHttpObservationFilter filter) {
+                return filter;
+            }
+        }
+        throw new IllegalStateException("No ServerHttpObservationFilter registered");
+    }
+    
+    @Benchmark
+    public int scrape(Bank bank) {
+        return bank.registry.scrape().length();
+    }
+    
+    @Benchmark
+    public int userDashboard(Bank bank) throws Exception {
+        return renderDashboard(bank);
+    }
+    
+    private static int renderDashboard(Bank bank) throws Exception {
+        int i = ThreadLocalRandom.current().nextInt(bank.users);
+        BankUserDetails principal = new BankUserDetails(bank.userIds.get(i), "user" + i, "", User.Role.USER);
+        return bank.mockMvc.perform(get("/user/dashboard").with(user(principal)))
+                .andReturn().getResponse().getContentAsByteArray().length;
+    }
+}
@@ -0,0 +1,65 @@
+package com.banking.system.benchmarks;
+
+import com.banking.system.dto.OnboardingResult;
+import com.banking.system.service.UserOnboardingService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Onboards a generated file of new users through the bulk onboarding service.
+ * Every invocation gets fresh usernames, so all lines are created each time;
+ * UserOnboardingServiceTest checks what is created and rejected. Compare "-p hashThreads=1,0" to see what the parallel hashing buys.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class OnboardingBenchmark {
+    
+    @State(Scope.Benchmark)
+    public static class Bank {
+        @Param("10000")
+        public int users;
+        
+        // 0 = one hashing thread per core
+        @Param("0")
+        public int hashThreads;
+        
+        ConfigurableApplicationContext context;
+        UserOnboardingService onboardingService;
+        byte[] file;
+        int run;
+        
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = BankContext.start("--app.onboarding.hash-threads=" + hashThreads);
+            onboardingService = context.getBean(UserOnboardingService.class);
+        }
+        
+        @Setup(Level.Invocation)
+        public void generateFile() {
+            run++;
+            StringBuilder csv = new StringBuilder(users * 32);
+            csv.append("username,password\n");
+            for (int i = 0; i < users; i++) {
+                csv.append("onboard").append(run).append('-').append(i).append(",Passw0rd-").append(i).append('\n');
+            }
+            file = csv.toString().getBytes(StandardCharsets.UTF_8);
+        }
+        
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+    
+    @Benchmark
+    public OnboardingResult onboardCsv(Bank bank) throws Exception {
+        return bank.onboardingService.onboard(new ByteArrayInputStream(bank.file), new StringWriter(), true);
+    }
+}
@@ -0,0 +1,119 @@
+package com.banking.system.benchmarks;
+
+import com.banking.system.config.BankUserDetails;
+import com.banking.system.entity.User;
+import com.banking.system.service.TransactionIdAllocator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * The pages QueryCountTest counts statements for, timed on the same grown data with
+ * the second-level cache off, so the time per page follows the statements it issues.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class QueryCountBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Bank {
+        @Param({"/user/dashboard", "/transactions", "/admin/dashboard", "/admin/logs"})
+        public String page;
+
+        ConfigurableApplicationContext context;
+        MockMvc mockMvc;
+        JdbcTemplate jdbc;
+        Long userId;
+        BankUserDetails owner;
+        BankUserDetails admin;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            context = BankContext.start(
+                    "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                    "--spring.jpa.properties.hibernate.cache.use_query_cache=false");
+            BankContext.seed(context, 10, 1, 5);
+            mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+                    .apply(springSecurity())
+                    .build();
+            jdbc = context.getBean(JdbcTemplate.class);
+            userId = BankContext.userIds(context).get(0);
+            owner = new BankUserDetails(userId, "user0", "", User.Role.USER);
+            admin = new BankUserDetails(userId, "admin", "", User.Role.ADMIN);
+            insertLogs(this, BankContext.userIds(context), 2);
+            grow(this);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public int page(Bank bank) throws Exception {
+        BankUserDetails principal = bank.page.startsWith("/admin") ? bank.admin : bank.owner;
+        return bank.mockMvc.perform(get(bank.page).with(user(principal)))
+                .andReturn().getResponse().getContentAsByteArray().length;
+    }
+
+    // More of everything: accounts and history for the user whose pages are timed, other users, logs
+    private static void grow(Bank bank) {
+        List<Object[]> accounts = new ArrayList<>();
+        for (int a = 0; a < 4; a++) {
+            accounts.add(new Object[] {"BENCH" + bank.userId + "-grown-" + a, new BigDecimal("1000000.00"), bank.userId});
+        }
+        for (int u = 0; u < 50; u++) {
+            bank.jdbc.update("INSERT INTO users (username, password, role) VALUES (?, 'x', 'USER')", "grown" + u);
+        }
+        List<Long> newUsers = bank.jdbc.queryForList("SELECT id FROM users WHERE username LIKE 'grown%'", Long.class);
+        for (Long user : newUsers) {
+            accounts.add(new Object[] {"BENCH" + user + "-0", new BigDecimal("1000000.00"), user});
+        }
+        bank.jdbc.batchUpdate("INSERT INTO accounts (account_number, balance, user_id) VALUES (?, ?, ?)", accounts);
+
+        List<Long> ownAccounts = bank.jdbc.queryForList("SELECT id FROM accounts WHERE user_id = ?", Long.class, bank.userId);
+        TransactionIdAllocator ids = bank.context.getBean(TransactionIdAllocator.class);
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = new ArrayList<>();
+        for (Long account : ownAccounts) {
+            long[] block = ids.allocate(30);
+            for (int t = 0; t < block.length; t++) {
+                rows.add(new Object[] {block[t], new BigDecimal("10.00"), t % 2 == 0 ? "DEPOSIT" : "WITHDRAW",
+                        Timestamp.valueOf(now.minusSeconds(t)), account});
+            }
+        }
+        bank.jdbc.batchUpdate("INSERT INTO transactions (id, amount, type, timestamp, account_id) VALUES (?, ?, ?, ?, ?)", rows);
+
+        List<Long> everyone = new ArrayList<>(newUsers);
+        everyone.add(bank.userId);
+        insertLogs(bank, everyone, 20);
+    }
+
+    private static void insertLogs(Bank bank, List<Long> users, int perUser) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = new ArrayList<>();
+        for (Long user : users) {
+            for (int i = 0; i < perUser; i++) {
+                rows.add(new Object[] {"seeded action " + i, Timestamp.valueOf(now.minusSeconds(i)), user});
+            }
+        }
+        bank.jdbc.batchUpdate("INSERT INTO logs (action, timestamp, user_id) VALUES (?, ?, ?)", rows);
+    }
+}
@@ -0,0 +1,134 @@
+package com.banking.system.benchmarks;
+
+import com.banking.system.config.BankUserDetails;
+import com.banking.system.config.ReplicaRouter;
+import com.banking.system.entity.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import javax.sql.DataSource;
+import java.io.File;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * /user/dashboard with and without read-replica routing, on two in-memory H2
+ * databases. Nothing replicates between them by itself: the primary is copied to
+ * the replica with SCRIPT / RUNSCRIPT, and a background task copies the heartbeat
+ * row to stand in for a replica that keeps up. ReplicaRoutingTest checks where
+ * reads go.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ReplicaBenchmark {
+
+    private static final long MAX_LAG_MS = 2000;
+
+    @State(Scope.Benchmark)
+    public static class Bank {
+        @Param({"primary", "replica"})
+        public String mode;
+
+        @Param("1000")
+        public int users;
+
+        ConfigurableApplicationContext context;
+        MockMvc mockMvc;
+        List<Long> userIds;
+        ScheduledExecutorService replicator;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            if ("replica".equals(mode)) {
+                context = BankContext.start(
+                        "--app.replica.enabled=true",
+                        "--app.replica.datasource.url=jdbc:h2:mem:replica-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--app.replica.datasource.username=sa",
+                        "--app.replica.datasource.password=",
+                        "--app.replica.max-lag-ms=" + MAX_LAG_MS,
+                        "--app.replica.heartbeat-ms=100");
+            } else {
+                context = BankContext.start();
+            }
+            BankContext.seed(context, users, 2, 20);
+            userIds = BankContext.userIds(context);
+            mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+                    .apply(springSecurity())
+                    .build();
+
+            if ("replica".equals(mode)) {
+                copyToReplica(this);
+                replicator = Executors.newSingleThreadScheduledExecutor();
+                replicator.scheduleWithFixedDelay(() -> copyHeartbeat(this), 0, 100, TimeUnit.MILLISECONDS);
+                awaitReplica(this);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            if (replicator != null) {
+                replicator.shutdownNow();
+                ReplicaRouter router = context.getBean(ReplicaRouter.class);
+                System.out.println();
+                System.out.println("Reads: " + router.getReplicaReads() + " replica, " + router.getStickyReads()
+                        + " sticky, " + router.getLagReads() + " lag fallbacks");
+            }
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public int userDashboard(Bank bank) throws Exception {
+        int i = ThreadLocalRandom.current().nextInt(bank.users);
+        BankUserDetails principal = new BankUserDetails(bank.userIds.get(i), "user" + i, "", User.Role.USER);
+        return bank.mockMvc.perform(get("/user/dashboard").with(user(principal)))
+                .andReturn().getResponse().getContentAsByteArray().length;
+    }
+
+    // Routing only starts once the replica's heartbeat is recent enough
+    private static void awaitReplica(Bank bank) throws InterruptedException {
+        ReplicaRouter router = bank.context.getBean(ReplicaRouter.class);
+        long deadline = System.currentTimeMillis() + 10 * MAX_LAG_MS;
+        while (router.getLagMillis() >= MAX_LAG_MS) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("Replica lag stuck at " + router.getLagMillis() + " ms");
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    // A full copy of the primary, standing in for a replica that has caught up
+    private static void copyToReplica(Bank bank) throws Exception {
+        File script = File.createTempFile("replica-", ".sql");
+        try {
+            new JdbcTemplate(bank.context.getBean("primaryDataSource", DataSource.class))
+                    .execute("SCRIPT TO '" + script.getAbsolutePath() + "'");
+            JdbcTemplate replica = new JdbcTemplate(bank.context.getBean("replicaDataSource", DataSource.class));
+            replica.execute("DROP ALL OBJECTS");
+            replica.execute("RUNSCRIPT FROM '" + script.getAbsolutePath() + "'");
+        } finally {
+            script.delete();
+        }
+    }
+
+    private static void copyHeartbeat(Bank bank) {
+        Long beat = new JdbcTemplate(bank.context.getBean("primaryDataSource", DataSource.class))
+                .queryForObject("SELECT beat_millis FROM replica_heartbeat WHERE id = 1", Long.class);
+        new JdbcTemplate(bank.context.getBean("replicaDataSource", DataSource.class))
+                .update("UPDATE replica_heartbeat SET beat_millis = ? WHERE id = 1", beat);
+    }
+}
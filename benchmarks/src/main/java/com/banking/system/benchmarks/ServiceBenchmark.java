@@ -0,0 +1,103 @@
+package com.banking.system.benchmarks;
+
+import com.banking.system.entity.Account;
+import com.banking.system.entity.Transaction;
+import com.banking.system.entity.User;
+import com.banking.system.service.AccountNumberAllocator;
+import com.banking.system.service.AccountService;
+import com.banking.system.service.TransactionService;
+import com.banking.system.service.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ServiceBenchmark {
+    
+    @State(Scope.Benchmark)
+    public static class Bank {
+        @Param("1000")
+        public int users;
+        
+        @Param("2")
+        public int accountsPerUser;
+        
+        @Param("50")
+        public int transactionsPerAccount;
+        
+        ConfigurableApplicationContext context;
+        TransactionService transactionService;
+        AccountService accountService;
+        AccountNumberAllocator accountNumberAllocator;
+        UserService userService;
+        UserDetailsService userDetailsService;
+        List<Long> accountIds;
+        List<Long> userIds;
+        
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = BankContext.start();
+            BankContext.seed(context, users, accountsPerUser, transactionsPerAccount);
+            transactionService = context.getBean(TransactionService.class);
+            accountService = context.getBean(AccountService.class);
+            accountNumberAllocator = context.getBean(AccountNumberAllocator.class);
+            userService = context.getBean(UserService.class);
+            userDetailsService = context.getBean(UserDetailsService.class);
+            accountIds = BankContext.accountIds(context);
+            userIds = BankContext.userIds(context);
+        }
+        
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+        
+        Long randomAccountId() {
+            return accountIds.get(ThreadLocalRandom.current().nextInt(accountIds.size()));
+        }
+        
+        Long randomUserId() {
+            return userIds.get(ThreadLocalRandom.current().nextInt(userIds.size()));
+        }
+        
+        String randomUsername() {
+            return "user" + ThreadLocalRandom.current().nextInt(users);
+        }
+    }
+    
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+    
+    @Benchmark
+    public Transaction createTransaction(Bank bank) {
+        return bank.transactionService.createTransaction(bank.randomAccountId(), AMOUNT, Transaction.TransactionType.DEPOSIT);
+    }
+    
+    @Benchmark
+    public Account createAccount(Bank bank) {
+        return bank.accountService.createAccount(bank.randomUserId());
+    }
+    
+    @Benchmark
+    public String nextAccountNumber(Bank bank) {
+        return bank.accountNumberAllocator.next();
+    }
+    
+    @Benchmark
+    public User getUserByUsername(Bank bank) {
+        return bank.userService.getUserByUsername(bank.randomUsername());
+    }
+    
+    @Benchmark
+    public UserDetails loadUserByUsername(Bank bank) {
+        return bank.userDetailsService.loadUserByUsername(bank.randomUsername());
+    }
+}
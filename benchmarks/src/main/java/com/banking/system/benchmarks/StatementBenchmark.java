@@ -0,0 +1,71 @@
+package com.banking.system.benchmarks;
+
+import com.banking.system.dto.StatementBatchResult;
+import com.banking.system.dto.StatementSummary;
+import com.banking.system.service.StatementService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.io.Writer;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams the current month's statement of a random account into a discarding
+ * writer, and runs the batch mode over all accounts (single shot, files under
+ * target/). The batch result line reports accounts per second.
+ */
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class StatementBenchmark {
+    
+    @State(Scope.Benchmark)
+    public static class Bank {
+        @Param("2000")
+        public int accounts;
+        
+        @Param("200")
+        public int transactionsPerAccount;
+        
+        ConfigurableApplicationContext context;
+        StatementService statementService;
+        List<Long> accountIds;
+        YearMonth month;
+        
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = BankContext.start("--app.statements.output-dir=target/statements-" + UUID.randomUUID());
+            BankContext.seed(context, accounts, 1, transactionsPerAccount);
+            statementService = context.getBean(StatementService.class);
+            accountIds = BankContext.accountIds(context);
+            month = YearMonth.now();
+        }
+        
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+    
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public StatementSummary statementCsv(Bank bank) throws Exception {
+        Long accountId = bank.accountIds.get(ThreadLocalRandom.current().nextInt(bank.accountIds.size()));
+        return bank.statementService.writeStatement(accountId, bank.month, StatementService.Format.CSV,
+                Writer.nullWriter());
+    }
+    
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public StatementBatchResult batch(Bank bank) throws Exception {
+        StatementBatchResult result = bank.statementService.generateAll(bank.month, StatementService.Format.CSV);
+        System.out.printf("%n%d statements, %.0f accounts/s%n", result.getAccounts(), result.getAccountsPerSecond());
+        return result;
+    }
+}
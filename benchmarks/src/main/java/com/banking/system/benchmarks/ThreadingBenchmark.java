@@ -0,0 +1,170 @@
+package com.banking.system.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Platform vs. virtual request threads under many concurrent sessions, over real
+ * HTTP so Tomcat's executor is in the path. Each benchmark thread is one logged-in
+ * user. "limited" puts the database limiter in front of the pool on platform
+ * threads; "virtual" adds virtual threads and needs Java 21, so run
+ * "-p mode=platform,limited" on older JVMs. A small idBlockSize makes deposits
+ * switch id blocks while every request permit is taken. Failed requests (anything
+ * but 200 or a redirect) and deposits that were sent but not posted are printed at
+ * the end of the trial; LimitedDataSourceTest checks the limiter's permits and
+ * timeouts.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(400)
+public class ThreadingBenchmark {
+    
+    private static final Pattern CSRF = Pattern.compile("name=\"_csrf\"[^>]*value=\"([^\"]+)\"");
+    private static final Pattern SESSION = Pattern.compile("JSESSIONID=([^;]+)");
+    
+    @State(Scope.Benchmark)
+    public static class Bank {
+        @Param({"platform", "limited", "virtual"})
+        public String mode;
+        
+        @Param("1000")
+        public int idBlockSize;
+        
+        @Param("1000")
+        public int users;
+        
+        ConfigurableApplicationContext context;
+        HttpClient client;
+        String baseUrl;
+        List<Long> accountIds;
+        final AtomicInteger sessions = new AtomicInteger();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong deposits = new AtomicLong();
+        
+        @Setup(Level.Trial)
+        public void setUp() {
+            String ids = "--app.transaction-ids.block-size=" + idBlockSize;
+            context = switch (mode) {
+                case "virtual" -> BankContext.start(ids, "--app.virtual-threads.enabled=true", "--app.db-limiter.enabled=true");
+                case "limited" -> BankContext.start(ids, "--app.db-limiter.enabled=true");
+                default -> BankContext.start(ids);
+            };
+            BankContext.seed(context, users, 1, 20);
+            accountIds = BankContext.accountIds(context);
+            baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .followRedirects(HttpClient.Redirect.NEVER)
+                    .build();
+        }
+        
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            // Failed deposits redirect like successful ones, so compare against the posted rows
+            long posted = context.getBean(JdbcTemplate.class).queryForObject(
+                    "SELECT COUNT(*) FROM transactions WHERE amount = 1.00", Long.class);
+            System.out.println();
+            System.out.println("Failed requests: " + failures.get() + ", deposits: " + deposits.get()
+                    + " sent, " + posted + " posted");
+            context.close();
+        }
+    }
+    
+    @State(Scope.Thread)
+    public static class Session {
+        String cookie;
+        String csrf;
+        long accountId;
+        
+        @Setup(Level.Trial)
+        public void logIn(Bank bank) throws Exception {
+            int i = bank.sessions.getAndIncrement() % bank.users;
+            accountId = bank.accountIds.get(i);
+            
+            HttpResponse<String> loginPage = send(bank, HttpRequest.newBuilder(URI.create(bank.baseUrl + "/login")).build());
+            cookie = sessionCookie(loginPage);
+            HttpResponse<String> login = send(bank, form(bank, "/login",
+                    "username=user" + i + "&password=" + BankContext.PASSWORD + "&_csrf=" + csrfToken(loginPage)));
+            cookie = sessionCookie(login);
+            
+            HttpResponse<String> transactionForm = send(bank, get(bank, "/transactions"));
+            csrf = csrfToken(transactionForm);
+        }
+        
+        private String sessionCookie(HttpResponse<?> response) {
+            for (String header : response.headers().allValues("Set-Cookie")) {
+                Matcher matcher = SESSION.matcher(header);
+                if (matcher.find()) {
+                    return "JSESSIONID=" + matcher.group(1);
+                }
+            }
+            return cookie;
+        }
+        
+        private static String csrfToken(HttpResponse<String> page) {
+            Matcher matcher = CSRF.matcher(page.body());
+            if (!matcher.find()) {
+                throw new IllegalStateException("No CSRF token on the page");
+            }
+            return URLEncoder.encode(matcher.group(1), StandardCharsets.UTF_8);
+        }
+        
+        HttpRequest get(Bank bank, String path) {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(bank.baseUrl + path));
+            if (cookie != null) {
+                builder.header("Cookie", cookie);
+            }
+            return builder.build();
+        }
+        
+        HttpRequest form(Bank bank, String path, String body) {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(bank.baseUrl + path))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString(body));
+            if (cookie != null) {
+                builder.header("Cookie", cookie);
+            }
+            return builder.build();
+        }
+    }
+    
+    private static HttpResponse<String> send(Bank bank, HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = bank.client.send(request, HttpResponse.BodyHandlers.ofString());
+        int status = response.statusCode();
+        if (status != 200 && status != 302) {
+            bank.failures.incrementAndGet();
+        }
+        return response;
+    }
+    
+    @Benchmark
+    public int userDashboard(Bank bank, Session session) throws Exception {
+        return send(bank, session.get(bank, "/user/dashboard")).body().length();
+    }
+    
+    @Benchmark
+    public int postTransaction(Bank bank, Session session) throws Exception {
+        HttpResponse<String> response = send(bank, session.form(bank, "/transactions",
+                "accountId=" + session.accountId + "&amount=1.00&type=DEPOSIT&_csrf=" + session.csrf));
+        bank.deposits.incrementAndGet();
+        return response.statusCode();
+    }
+}
@@ -0,0 +1,72 @@
+package com.banking.system.benchmarks;
+
+import com.banking.system.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transfer throughput when many threads move random amounts between a small set of
+ * accounts, so opposite transfers on the same pair run concurrently all the time.
+ * Conservation and deadlock freedom are checked by TransferConcurrencyTest.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(32)
+public class TransferBenchmark {
+    
+    @State(Scope.Benchmark)
+    public static class Bank {
+        @Param("8")
+        public int accounts;
+        
+        ConfigurableApplicationContext context;
+        TransactionService transactionService;
+        List<Long> accountIds;
+        List<String> accountNumbers;
+        final AtomicLong transfers = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = BankContext.start();
+            BankContext.seed(context, accounts, 1, 0);
+            transactionService = context.getBean(TransactionService.class);
+            accountIds = BankContext.accountIds(context);
+            accountNumbers = context.getBean(JdbcTemplate.class).queryForList(
+                    "SELECT account_number FROM accounts WHERE account_number LIKE 'BENCH%' ORDER BY id", String.class);
+        }
+        
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            System.out.println();
+            System.out.println("Transfers: " + transfers.get() + ", failed: " + failures.get());
+            context.close();
+        }
+    }
+    
+    @Benchmark
+    public Object transfer(Bank bank) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(bank.accounts);
+        int to = (from + 1 + random.nextInt(bank.accounts - 1)) % bank.accounts;
+        BigDecimal amount = BigDecimal.valueOf(random.nextInt(1, 10_000), 2);
+        try {
+            Object legs = bank.transactionService.transfer(bank.accountIds.get(from), bank.accountNumbers.get(to),
+                    amount, null);
+            bank.transfers.incrementAndGet();
+            return legs;
+        } catch (RuntimeException e) {
+            bank.failures.incrementAndGet();
+            return e;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.banking.system.config;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Password encoder with a configurable algorithm and cost.
+ *
+ * New hashes are written as "{bcrypt}..." or "{pbkdf2}..."; hashes without a
+ * prefix are the plain BCrypt hashes from before and are still accepted.
+ * {@link #upgradeEncoding} is true for any hash not in the configured algorithm
+ * and cost, in either direction, so Spring Security rehashes it on the next
+ * successful login (see the UserDetailsPasswordService in SecurityConfig).
+ *
+ * Verification runs on a small bounded pool, so a login storm uses at most that
+ * many cores and the rest stay available for other requests. When the queue is
+ * full the login fails instead of waiting.
+ */
+public class AdaptivePasswordEncoder implements PasswordEncoder {
+    
+    private final String algorithm;
+    private final BCryptPasswordEncoder bcrypt;
+    private final DelegatingPasswordEncoder delegate;
+    private final ThreadPoolExecutor verifier;
+    
+    public AdaptivePasswordEncoder(String algorithm, int bcryptStrength, int verifyThreads, int verifyQueue) {
+        this.algorithm = algorithm;
+        bcrypt = new CostAwareBCrypt(bcryptStrength);
+        Map<String, PasswordEncoder> encoders = Map.of(
+                "bcrypt", bcrypt,
+                "pbkdf2", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        if (!encoders.containsKey(algorithm)) {
+            throw new IllegalArgumentException("Unsupported password algorithm: " + algorithm);
+        }
+        delegate = new DelegatingPasswordEncoder(algorithm, encoders);
+        delegate.setDefaultPasswordEncoderForMatches(bcrypt);
+        
+        AtomicInteger threadNumber = new AtomicInteger();
+        verifier = new ThreadPoolExecutor(verifyThreads, verifyThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(verifyQueue), runnable -> {
+                    Thread thread = new Thread(runnable, "password-verify-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+    
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+    
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        Future<Boolean> result;
+        try {
+            result = verifier.submit(() -> delegate.matches(rawPassword, encodedPassword));
+        } catch (RejectedExecutionException e) {
+            throw new AuthenticationServiceException("Too many logins in progress, try again shortly");
+        }
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AuthenticationServiceException("Interrupted while checking the password");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new AuthenticationServiceException("Password check failed", e.getCause());
+        }
+    }
+    
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        // An unprefixed hash at the configured BCrypt cost is left alone rather than rewritten just to add the prefix
+        if (encodedPassword != null && !encodedPassword.startsWith("{") && algorithm.equals("bcrypt")) {
+            return bcrypt.upgradeEncoding(encodedPassword);
+        }
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+    
+    public int getVerifyQueueDepth() {
+        return verifier.getQueue().size();
+    }
+    
+    public void shutdown() {
+        verifier.shutdownNow();
+    }
+    
+    // BCrypt's own check only ever raises the cost; this one also lowers it
+    private static final class CostAwareBCrypt extends BCryptPasswordEncoder {
+        private static final Pattern COST = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$");
+        private final int strength;
+        
+        private CostAwareBCrypt(int strength) {
+            super(strength);
+            this.strength = strength;
+        }
+        
+        @Override
+        public boolean upgradeEncoding(String encodedPassword) {
+            if (encodedPassword == null) {
+                return false;
+            }
+            Matcher matcher = COST.matcher(encodedPassword);
+            return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.banking.system.config;
+
+import com.banking.system.entity.User;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import java.util.Collections;
+
+/**
+ * Principal stored in the security context at login, so request handling can
+ * get the current user's id and role without querying the users table.
+ */
+public class BankUserDetails extends org.springframework.security.core.userdetails.User {
+    
+    private final Long id;
+    private final User.Role role;
+    
+    public BankUserDetails(Long id, String username, String password, User.Role role) {
+        super(username, password, Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role.name())));
+        this.id = id;
+        this.role = role;
+    }
+    
+    public Long getId() { return id; }
+    public User.Role getRole() { return role; }
+    
+    public static BankUserDetails current() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.getPrincipal() instanceof BankUserDetails principal) {
+            return principal;
+        }
+        throw new RuntimeException("User not found");
+    }
+}
@@ -0,0 +1,141 @@
+package com.banking.system.config;
+
+import org.springframework.security.authentication.AccountStatusUserDetailsChecker;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Authenticates API calls, which send their Basic credentials with every request.
+ * A successful check is remembered for ttl, keyed by an HMAC of the username and
+ * password under a key that never leaves the process, so a polling client costs
+ * one password hash per ttl instead of one per call and does not crowd logins out
+ * of the verify pool.
+ *
+ * A remembered check only counts while the stored hash it was made against is
+ * still the user's current one. The user itself is looked up on every call, so a
+ * password change, role change or delete applies at once. Failed checks are never
+ * remembered and always cost a full hash.
+ */
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private final AuthenticationProvider delegate;
+    private final UserDetailsService userDetailsService;
+    private final long ttlMillis;
+    private final AccountStatusUserDetailsChecker statusChecker = new AccountStatusUserDetailsChecker();
+    private final SecretKeySpec key;
+    private final Map<String, Verified> verified;
+
+    public CachingAuthenticationProvider(AuthenticationProvider delegate, UserDetailsService userDetailsService,
+                                         int maxSize, long ttlSeconds) {
+        this.delegate = delegate;
+        this.userDetailsService = userDetailsService;
+        this.ttlMillis = ttlSeconds * 1000;
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        key = new SecretKeySpec(secret, "HmacSHA256");
+        verified = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Verified> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        if (ttlMillis <= 0 || authentication.getCredentials() == null) {
+            return delegate.authenticate(authentication);
+        }
+        String username = authentication.getName();
+        String entry = entryKey(username, authentication.getCredentials().toString());
+
+        String checkedHash = lookup(entry);
+        if (checkedHash != null) {
+            try {
+                UserDetails user = userDetailsService.loadUserByUsername(username);
+                if (checkedHash.equals(user.getPassword())) {
+                    statusChecker.check(user);
+                    return UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities());
+                }
+            } catch (UsernameNotFoundException e) {
+                // Deleted since; the delegate reports it the way it reports any unknown user
+            }
+            forget(entry);
+        }
+
+        Authentication result = delegate.authenticate(authentication);
+        // After a rehash the principal carries the new hash, which is what the user cache will hold
+        if (result != null && result.getPrincipal() instanceof UserDetails user && user.getPassword() != null) {
+            synchronized (verified) {
+                verified.put(entry, new Verified(user.getPassword(), System.currentTimeMillis() + ttlMillis));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication);
+    }
+
+    public int size() {
+        synchronized (verified) {
+            return verified.size();
+        }
+    }
+
+    private String lookup(String entry) {
+        synchronized (verified) {
+            Verified found = verified.get(entry);
+            if (found == null) {
+                return null;
+            }
+            if (found.expiresAt <= System.currentTimeMillis()) {
+                verified.remove(entry);
+                return null;
+            }
+            return found.hash;
+        }
+    }
+
+    private void forget(String entry) {
+        synchronized (verified) {
+            verified.remove(entry);
+        }
+    }
+
+    private String entryKey(String username, String password) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return HexFormat.of().formatHex(mac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    private static final class Verified {
+        private final String hash;
+        private final long expiresAt;
+
+        private Verified(String hash, long expiresAt) {
+            this.hash = hash;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
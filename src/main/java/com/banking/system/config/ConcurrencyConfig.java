@@ -0,0 +1,51 @@
+package com.banking.system.config;
+
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import javax.sql.DataSource;
+
+/**
+ * Opt-in request threading: virtual threads for Tomcat (Java 21+), and a limiter
+ * in front of the connection pool so the extra concurrency queues for the database
+ * instead of failing on connection-timeout. Services run on the request thread, so
+ * they are virtual too; the ledger, audit and id-prefetch workers stay platform
+ * threads.
+ */
+@Configuration
+public class ConcurrencyConfig {
+    
+    @Bean
+    @ConditionalOnProperty(name = "app.virtual-threads.enabled", havingValue = "true")
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadExecutor() {
+        if (Runtime.version().feature() < 21) {
+            throw new IllegalStateException("app.virtual-threads.enabled needs Java 21 or later, running on "
+                    + Runtime.version());
+        }
+        return protocolHandler -> protocolHandler.setExecutor(new VirtualThreadExecutor("http-virtual-"));
+    }
+    
+    // Static so it is registered before the DataSource is created
+    @Bean
+    @ConditionalOnProperty(name = "app.db-limiter.enabled", havingValue = "true")
+    public static BeanPostProcessor dataSourceLimiter(
+            @Value("${app.db-limiter.permits:${spring.datasource.hikari.maximum-pool-size:10}}") int permits,
+            @Value("${app.db-limiter.reserved-permits:2}") int reservedPermits,
+            @Value("${app.db-limiter.acquire-timeout-ms:120000}") long acquireTimeoutMs) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // Only the DataSource the application uses; with a read replica, the pools behind it stay unwrapped
+                if ("dataSource".equals(beanName) && bean instanceof DataSource dataSource
+                        && !(bean instanceof LimitedDataSource)) {
+                    return new LimitedDataSource(dataSource, permits, reservedPermits, acquireTimeoutMs);
+                }
+                return bean;
+            }
+        };
+    }
+}
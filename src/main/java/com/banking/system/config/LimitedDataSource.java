@@ -0,0 +1,120 @@
+package com.banking.system.config;
+
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admits at most a fixed number of threads to the database at a time. Callers
+ * beyond that wait in a fair queue on a semaphore, which is cheap even for
+ * thousands of virtual threads, instead of timing out in the pool after
+ * connection-timeout. The permit is held until the connection is closed.
+ *
+ * A few of the pool's connections are kept out of that queue for threads that
+ * already hold one (a REQUIRES_NEW transaction inside another one), so a nested
+ * transaction does not wait behind requests that may be waiting on its locks. Work
+ * that callers wait on while holding locks, such as id block reservations, must
+ * not use this pool at all; see IdBlocks.
+ */
+public class LimitedDataSource extends DelegatingDataSource {
+    
+    private final Semaphore permits;
+    private final Semaphore reserved;
+    private final int permitCount;
+    private final long acquireTimeoutMs;
+    private final ThreadLocal<int[]> held = ThreadLocal.withInitial(() -> new int[1]);
+    
+    // poolSize is the pool's maximum size; reservedCount of it is kept for nested transactions
+    public LimitedDataSource(DataSource target, int poolSize, int reservedCount, long acquireTimeoutMs) {
+        super(target);
+        if (reservedCount < 1 || reservedCount >= poolSize) {
+            throw new IllegalStateException("Reserved database permits (" + reservedCount
+                    + ") must be at least 1 and below the pool size (" + poolSize + ")");
+        }
+        this.permits = new Semaphore(poolSize - reservedCount, true);
+        this.reserved = new Semaphore(reservedCount, true);
+        this.permitCount = poolSize - reservedCount;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        return admit(() -> obtainTargetDataSource().getConnection());
+    }
+    
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return admit(() -> obtainTargetDataSource().getConnection(username, password));
+    }
+    
+    public int getPermitCount() { return permitCount; }
+    public int getAvailablePermits() { return permits.availablePermits(); }
+    public int getWaitingThreads() { return permits.getQueueLength(); }
+    public int getAvailableReservedPermits() { return reserved.availablePermits(); }
+    
+    private Connection admit(ConnectionSource source) throws SQLException {
+        int[] count = held.get();
+        Semaphore semaphore = count[0] > 0 ? reserved : permits;
+        try {
+            if (!semaphore.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException("No " + (semaphore == reserved ? "reserved " : "")
+                        + "database permit available after " + acquireTimeoutMs + "ms (" + semaphore.getQueueLength() + " waiting)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database permit", e);
+        }
+        try {
+            Connection connection = source.get();
+            count[0]++;
+            return wrap(connection, count, semaphore);
+        } catch (SQLException | RuntimeException e) {
+            semaphore.release();
+            throw e;
+        }
+    }
+    
+    private Connection wrap(Connection target, int[] count, Semaphore semaphore) {
+        AtomicBoolean closed = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+                new Class<?>[] {ConnectionProxy.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "getTargetConnection":
+                            return target;
+                        case "close":
+                            if (closed.compareAndSet(false, true)) {
+                                try {
+                                    target.close();
+                                } finally {
+                                    count[0]--;
+                                    semaphore.release();
+                                }
+                            }
+                            return null;
+                        default:
+                            try {
+                                return method.invoke(target, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getTargetException();
+                            }
+                    }
+                });
+    }
+    
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection get() throws SQLException;
+    }
+}
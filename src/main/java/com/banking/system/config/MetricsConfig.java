@@ -0,0 +1,86 @@
+package com.banking.system.config;
+
+import com.banking.system.service.AuditLogWriter;
+import com.banking.system.service.IdempotencyCache;
+import com.banking.system.service.LedgerEngine;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+    
+    // Makes @Timed on the services record timers
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+    
+    @Bean
+    public HibernatePropertiesCustomizer queryCounterCustomizer(QueryCounter queryCounter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, queryCounter);
+    }
+    
+    // The components below already keep their own counts; publish them as they are
+    @Bean
+    public MeterBinder bankMeters(AuditLogWriter auditLogWriter, IdempotencyCache idempotencyCache,
+                                  LedgerEngine ledgerEngine, ObjectProvider<LimitedDataSource> limiter,
+                                  AdaptivePasswordEncoder passwordEncoder, ReplicaRouter replicaRouter) {
+        return registry -> {
+            if (replicaRouter.isEnabled()) {
+                Gauge.builder("bank.replica.lag", replicaRouter,
+                                router -> router.getLagMillis() == Long.MAX_VALUE ? Double.NaN : router.getLagMillis() / 1000.0)
+                        .baseUnit("seconds")
+                        .register(registry);
+                FunctionCounter.builder("bank.replica.reads", replicaRouter, ReplicaRouter::getReplicaReads)
+                        .tag("target", "replica").tag("reason", "routed")
+                        .register(registry);
+                FunctionCounter.builder("bank.replica.reads", replicaRouter, ReplicaRouter::getStickyReads)
+                        .tag("target", "primary").tag("reason", "sticky")
+                        .register(registry);
+                FunctionCounter.builder("bank.replica.reads", replicaRouter, ReplicaRouter::getLagReads)
+                        .tag("target", "primary").tag("reason", "lag")
+                        .register(registry);
+            }
+            Gauge.builder("bank.passwords.verify.queue", passwordEncoder, AdaptivePasswordEncoder::getVerifyQueueDepth)
+                    .register(registry);
+            limiter.ifAvailable(dataSource -> {
+                Gauge.builder("bank.db.limiter.waiting", dataSource, LimitedDataSource::getWaitingThreads)
+                        .register(registry);
+                Gauge.builder("bank.db.limiter.available", dataSource, LimitedDataSource::getAvailablePermits)
+                        .register(registry);
+                Gauge.builder("bank.db.limiter.reserved.available", dataSource, LimitedDataSource::getAvailableReservedPermits)
+                        .register(registry);
+            });
+            Gauge.builder("bank.audit.queue.depth", auditLogWriter, AuditLogWriter::getQueueDepth)
+                    .register(registry);
+            FunctionCounter.builder("bank.audit.spilled", auditLogWriter, AuditLogWriter::getSpilledCount)
+                    .register(registry);
+            FunctionCounter.builder("bank.audit.journal.forces", auditLogWriter, AuditLogWriter::getJournalForceCount)
+                    .register(registry);
+            FunctionCounter.builder("bank.idempotency.requests", idempotencyCache, IdempotencyCache::getHitCount)
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("bank.idempotency.requests", idempotencyCache, IdempotencyCache::getMissCount)
+                    .tag("result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("bank.ledger.commits", ledgerEngine, LedgerEngine::getCommitCount)
+                    .register(registry);
+            FunctionCounter.builder("bank.transactions.rejected", ledgerEngine, LedgerEngine::getRejectedCount)
+                    .tag("reason", "insufficient_balance")
+                    .tag("path", "ledger")
+                    .register(registry);
+            FunctionCounter.builder("bank.transactions.rejected", ledgerEngine, LedgerEngine::getBusyCount)
+                    .tag("reason", "ledger_busy")
+                    .tag("path", "ledger")
+                    .register(registry);
+        };
+    }
+}
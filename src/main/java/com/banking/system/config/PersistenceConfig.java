@@ -0,0 +1,20 @@
+package com.banking.system.config;
+
+import com.banking.system.service.TransactionIdAllocator;
+import com.banking.system.service.TransactionIdGenerator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import java.util.function.Supplier;
+
+@Configuration
+public class PersistenceConfig {
+    
+    // A lookup rather than the bean: the allocator needs the schema, so it is created after the EntityManagerFactory
+    @Bean
+    public HibernatePropertiesCustomizer transactionIdAllocatorCustomizer(ObjectProvider<TransactionIdAllocator> allocator) {
+        return properties -> properties.put(TransactionIdGenerator.ALLOCATOR_SETTING,
+                (Supplier<TransactionIdAllocator>) allocator::getObject);
+    }
+}
@@ -0,0 +1,69 @@
+package com.banking.system.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import java.io.IOException;
+
+/**
+ * Records how many SQL statements each request ran, per endpoint, and logs a
+ * warning when a request goes over the threshold so N+1 regressions show up as
+ * soon as the page is hit. Runs first, so the security filters' queries count too.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class QueryCountFilter extends OncePerRequestFilter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(QueryCountFilter.class);
+    
+    @Autowired
+    private QueryCounter queryCounter;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${app.metrics.query-warn-threshold:20}")
+    private int warnThreshold;
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        queryCounter.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            int queries = queryCounter.stop();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+            
+            DistributionSummary.builder("bank.request.queries")
+                    .description("SQL statements prepared by Hibernate per request")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .record(queries);
+            if (queries > warnThreshold) {
+                Counter.builder("bank.request.query.warnings")
+                        .tag("method", request.getMethod())
+                        .tag("uri", uri)
+                        .register(meterRegistry)
+                        .increment();
+                logger.warn("{} {} ran {} SQL statements (threshold {})",
+                        request.getMethod(), uri, queries, warnThreshold);
+            }
+        }
+    }
+}
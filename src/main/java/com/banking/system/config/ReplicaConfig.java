@@ -0,0 +1,77 @@
+package com.banking.system.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.util.StringUtils;
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Opt-in read replica. The application's DataSource becomes a router over two
+ * pools: spring.datasource.* for the primary and app.replica.datasource.* for the
+ * replica. ReplicaRouter picks the pool per transaction.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.replica.enabled", havingValue = "true")
+public class ReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    // Bound by hand so a second DataSourceProperties bean does not confuse the auto-configuration
+    @Bean
+    public HikariDataSource replicaDataSource(Environment environment) {
+        Binder binder = Binder.get(environment);
+        DataSourceProperties properties = binder.bind("app.replica.datasource", DataSourceProperties.class)
+                .orElseGet(DataSourceProperties::new);
+        if (!StringUtils.hasText(properties.getUrl())) {
+            throw new IllegalStateException("app.replica.enabled needs app.replica.datasource.url");
+        }
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("replica");
+        binder.bind("app.replica.datasource.hikari", Bindable.ofInstance(dataSource));
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 ReplicaRouter router) {
+        AbstractRoutingDataSource routing = new AbstractRoutingDataSource() {
+            @Override
+            protected Object determineCurrentLookupKey() {
+                return router.route();
+            }
+        };
+        routing.setTargetDataSources(Map.of(ReplicaRouter.Target.PRIMARY, primary, ReplicaRouter.Target.REPLICA, replica));
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        // The transaction manager opens the connection before the transaction is marked read-only;
+        // the proxy defers fetching the real one (and so the routing) to the first statement
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("primaryDataSource") DataSource primary,
+                                               @Qualifier("replicaDataSource") DataSource replica,
+                                               ReplicaRouter router) {
+        return new ReplicaLagMonitor(primary, replica, router);
+    }
+}
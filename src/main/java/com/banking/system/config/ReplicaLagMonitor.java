@@ -0,0 +1,64 @@
+package com.banking.system.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import javax.sql.DataSource;
+
+/**
+ * Measures replica lag with a heartbeat row: the primary's copy is stamped with the
+ * current time on every tick and read back from the replica, so the lag is the age
+ * of the newest stamp that has replicated. Works with any replication setup that
+ * copies the replica_heartbeat table; keep max-lag-ms a few heartbeats long.
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final ReplicaRouter router;
+    private boolean replicaFailing;
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, ReplicaRouter router) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.router = router;
+    }
+
+    @PostConstruct
+    public void createTable() {
+        primary.execute("CREATE TABLE IF NOT EXISTS replica_heartbeat (id INT PRIMARY KEY, beat_millis BIGINT NOT NULL)");
+    }
+
+    @Scheduled(fixedDelayString = "${app.replica.heartbeat-ms:500}")
+    public void beat() {
+        long now = System.currentTimeMillis();
+        try {
+            if (primary.update("UPDATE replica_heartbeat SET beat_millis = ? WHERE id = 1", now) == 0) {
+                primary.update("INSERT INTO replica_heartbeat (id, beat_millis) VALUES (1, ?)", now);
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Could not write the replica heartbeat: {}", e.getMessage());
+        }
+
+        try {
+            Long seen = replica.queryForObject("SELECT beat_millis FROM replica_heartbeat WHERE id = 1", Long.class);
+            router.heartbeatSeen(seen == null ? 0 : seen);
+            if (replicaFailing) {
+                logger.info("Replica reachable again, lag {} ms", router.getLagMillis());
+                replicaFailing = false;
+            }
+        } catch (DataAccessException e) {
+            // Unreachable or not yet replicated: every read goes to the primary until it recovers
+            router.replicaUnavailable();
+            if (!replicaFailing) {
+                logger.warn("Replica unavailable, reading from the primary: {}", e.getMessage());
+                replicaFailing = true;
+            }
+        }
+    }
+}
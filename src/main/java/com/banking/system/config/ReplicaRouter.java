@@ -0,0 +1,135 @@
+package com.banking.system.config;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides whether a connection comes from the primary or the read replica (see
+ * ReplicaConfig). Only read-only transactions go to the replica, and not while it
+ * lags more than max-lag-ms behind or when the current user committed a write
+ * within sticky-ms, so users always see their own writes. Replica reads may use the
+ * second-level cache but never fill it, or a stale row would be served to everyone.
+ *
+ * Present even when replicas are disabled, so services can mark writes
+ * unconditionally.
+ */
+@Component
+public class ReplicaRouter {
+
+    public enum Target { PRIMARY, REPLICA }
+
+    private static final int STICKY_PURGE_SIZE = 10_000;
+
+    @Value("${app.replica.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.replica.max-lag-ms:5000}")
+    private long maxLagMs;
+
+    // Defaults to max-lag-ms: anything older is on the replica whenever it is used
+    @Value("${app.replica.sticky-ms:${app.replica.max-lag-ms:5000}}")
+    private long stickyMs;
+
+    private final Map<Long, Long> stickyUntil = new ConcurrentHashMap<>();
+
+    // Newest primary heartbeat seen on the replica; 0 until one has been seen
+    private volatile long replicaBeatMillis;
+
+    private final AtomicLong replicaReads = new AtomicLong();
+    private final AtomicLong stickyReads = new AtomicLong();
+    private final AtomicLong lagReads = new AtomicLong();
+
+    public Target route() {
+        Long userId = currentUserId();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            // A committed read-write transaction makes its user sticky
+            if (userId != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        markWritten(userId);
+                    }
+                });
+            }
+            return Target.PRIMARY;
+        }
+        if (getLagMillis() > maxLagMs) {
+            lagReads.incrementAndGet();
+            return Target.PRIMARY;
+        }
+        if (userId != null && isSticky(userId)) {
+            stickyReads.incrementAndGet();
+            return Target.PRIMARY;
+        }
+        replicaReads.incrementAndGet();
+        skipCachePuts();
+        return Target.REPLICA;
+    }
+
+    private static void skipCachePuts() {
+        for (Object resource : TransactionSynchronizationManager.getResourceMap().values()) {
+            if (resource instanceof EntityManagerHolder holder) {
+                holder.getEntityManager().unwrap(Session.class).setCacheMode(CacheMode.GET);
+            }
+        }
+    }
+
+    // Call once the user's write has committed, for writes made outside the user's own transactions
+    public void markWritten(Long userId) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        stickyUntil.put(userId, now + TimeUnit.MILLISECONDS.toNanos(stickyMs));
+        if (stickyUntil.size() > STICKY_PURGE_SIZE) {
+            stickyUntil.values().removeIf(until -> until - now <= 0);
+        }
+    }
+
+    public boolean isSticky(Long userId) {
+        Long until = stickyUntil.get(userId);
+        if (until == null) {
+            return false;
+        }
+        if (until - System.nanoTime() > 0) {
+            return true;
+        }
+        stickyUntil.remove(userId, until);
+        return false;
+    }
+
+    private static Long currentUserId() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null && auth.getPrincipal() instanceof BankUserDetails user ? user.getId() : null;
+    }
+
+    public void heartbeatSeen(long beatMillis) {
+        replicaBeatMillis = beatMillis;
+    }
+
+    public void replicaUnavailable() {
+        replicaBeatMillis = 0;
+    }
+
+    // Keeps growing if heartbeats stop arriving; Long.MAX_VALUE before the first one
+    public long getLagMillis() {
+        long beat = replicaBeatMillis;
+        return beat == 0 ? Long.MAX_VALUE : Math.max(0, System.currentTimeMillis() - beat);
+    }
+
+    public boolean isEnabled() { return enabled; }
+    public long getReplicaReads() { return replicaReads.get(); }
+    public long getStickyReads() { return stickyReads.get(); }
+    public long getLagReads() { return lagReads.get(); }
+}
@@ -0,0 +1,50 @@
+package com.banking.system.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import java.sql.ResultSet;
+
+/**
+ * Schema changes that ddl-auto=update does not make on an existing database: it
+ * adds new constraints but never drops old ones.
+ */
+// Runs after Hibernate has created or updated the schema
+@Component
+@DependsOn("entityManagerFactory")
+public class SchemaMigrations {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigrations.class);
+
+    // Idempotency keys used to be unique across all accounts; they are now unique per account
+    private static final String GLOBAL_IDEMPOTENCY_KEY = "uk_transactions_idempotency_key";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void migrate() {
+        if (hasIndex("transactions", GLOBAL_IDEMPOTENCY_KEY)) {
+            jdbcTemplate.execute("ALTER TABLE transactions DROP INDEX " + GLOBAL_IDEMPOTENCY_KEY);
+            logger.info("Dropped unique index {} in favour of the per-account one", GLOBAL_IDEMPOTENCY_KEY);
+        }
+    }
+
+    private boolean hasIndex(String table, String index) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            try (ResultSet indexes = connection.getMetaData().getIndexInfo(connection.getCatalog(), null, table, true, false)) {
+                while (indexes.next()) {
+                    if (index.equalsIgnoreCase(indexes.getString("INDEX_NAME"))) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }));
+    }
+}
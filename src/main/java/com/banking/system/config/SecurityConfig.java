@@ -1,21 +1,25 @@
 package com.banking.system.config;
 
-import com.banking.system.entity.User;
 import com.banking.system.repository.UserRepository;
+import com.banking.system.service.UserCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.metrics.export.prometheus.PrometheusScrapeEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
-import java.util.Collections;
 
 @Configuration
 @EnableWebSecurity
@@ -24,40 +28,94 @@ public class SecurityConfig {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private UserCache userCache;
+    
+    @Value("${app.passwords.algorithm:bcrypt}")
+    private String passwordAlgorithm;
+    
+    @Value("${app.passwords.bcrypt-strength:10}")
+    private int bcryptStrength;
+    
+    // 0 means half the cores
+    @Value("${app.passwords.verify-threads:0}")
+    private int verifyThreads;
+    
+    @Value("${app.passwords.verify-queue:200}")
+    private int verifyQueue;
+    
+    // 0 turns it off: every API call then runs a full password check
+    @Value("${app.api.credential-cache.ttl-seconds:60}")
+    private long credentialCacheTtlSeconds;
+    
+    @Value("${app.api.credential-cache.max-size:10000}")
+    private int credentialCacheMaxSize;
+    
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public AdaptivePasswordEncoder passwordEncoder() {
+        int threads = verifyThreads > 0 ? verifyThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new AdaptivePasswordEncoder(passwordAlgorithm, bcryptStrength, threads, verifyQueue);
     }
     
     @Bean
     public UserDetailsService userDetailsService() {
-        return username -> {
-            System.out.println("=== UserDetailsService called for username: " + username + " ===");
-            
-            User user = userRepository.findByUsername(username)
-                    .orElseThrow(() -> {
-                        System.out.println("User not found: " + username);
-                        return new UsernameNotFoundException("User not found");
-                    });
-            
-            System.out.println("Found user: " + user.getUsername());
-            System.out.println("Stored password: " + user.getPassword());
-            System.out.println("Password length: " + user.getPassword().length());
-            System.out.println("Is BCrypt hash? " + user.getPassword().startsWith("$2a$"));
-            
-            return new org.springframework.security.core.userdetails.User(
-                    user.getUsername(),
-                    user.getPassword(),
-                    Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole().name()))
-            );
+        return username -> userCache.get(username, userRepository::findByUsername)
+                .map(user -> new BankUserDetails(user.getId(), user.getUsername(), user.getPassword(), user.getRole()))
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+    }
+    
+    // Stores the new hash when a login finds the old one in another algorithm or cost
+    @Bean
+    public UserDetailsPasswordService userDetailsPasswordService() {
+        return (user, newPassword) -> {
+            BankUserDetails details = (BankUserDetails) user;
+            userRepository.updatePassword(details.getId(), newPassword);
+            userCache.evict(details.getUsername());
+            return new BankUserDetails(details.getId(), details.getUsername(), newPassword, details.getRole());
         };
     }
     
+    // API clients sign in with Basic on every call and get no session; a missing or wrong
+    // password is a 401, never a redirect to the login page. Checks that passed are
+    // remembered for a while so polling clients don't hash a password per call
+    @Bean
+    @Order(1)
+    public SecurityFilterChain apiSecurityFilterChain(HttpSecurity http) throws Exception {
+        DaoAuthenticationProvider passwordCheck = new DaoAuthenticationProvider();
+        passwordCheck.setPasswordEncoder(passwordEncoder());
+        passwordCheck.setUserDetailsService(userDetailsService());
+        passwordCheck.setUserDetailsPasswordService(userDetailsPasswordService());
+        CachingAuthenticationProvider provider = new CachingAuthenticationProvider(passwordCheck,
+                userDetailsService(), credentialCacheMaxSize, credentialCacheTtlSeconds);
+        
+        http
+            .securityMatcher("/api/**")
+            .authenticationManager(new ProviderManager(provider))
+            .authorizeHttpRequests(auth -> auth
+                .anyRequest().hasRole("USER")
+            )
+            .httpBasic(basic -> basic
+                .realmName("SecureBank")
+            )
+            .sessionManagement(session -> session
+                .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+            )
+            // Without a session cookie there is nothing for a cross-site request to ride on
+            .csrf(csrf -> csrf.disable());
+        
+        return http.build();
+    }
+    
     @Bean
+    @Order(2)
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/", "/login", "/css/**", "/js/**").permitAll()
+                // The error dispatch of an API 401/403 lands here; it must keep its status
+                .requestMatchers("/error").permitAll()
+                // Served on the loopback-only management port, see management.server.*
+                .requestMatchers(EndpointRequest.to(HealthEndpoint.class, PrometheusScrapeEndpoint.class)).permitAll()
                 .requestMatchers("/admin/**").hasRole("ADMIN")
                 .requestMatchers("/user/**").hasRole("USER")
                 .requestMatchers("/transactions").hasRole("USER")
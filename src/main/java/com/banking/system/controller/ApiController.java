@@ -0,0 +1,213 @@
+package com.banking.system.controller;
+
+import com.banking.system.config.BankUserDetails;
+import com.banking.system.dto.AccountView;
+import com.banking.system.dto.PostedTransaction;
+import com.banking.system.dto.TransactionRequest;
+import com.banking.system.dto.TransactionView;
+import com.banking.system.service.AccountService;
+import com.banking.system.service.TransactionPostingService;
+import com.banking.system.service.TransactionService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * JSON API over the same services as the HTML pages.
+ *
+ * Account and history reads carry a strong ETag built from the account version,
+ * which every balance change increments, so revalidating with If-None-Match costs
+ * one primary-key lookup and returns 304 without reading any history. History is
+ * keyset-paged on (timestamp, id) like the dashboard and written out row by row.
+ */
+@RestController
+@RequestMapping("/api/v1")
+public class ApiController {
+
+    public static final int MAX_HISTORY_PAGE_SIZE = 1000;
+
+    // Clients may keep a copy but must revalidate it on every use
+    private static final String REVALIDATE = "private, no-cache";
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionPostingService transactionPostingService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @GetMapping("/accounts")
+    public List<AccountView> accounts(WebRequest request, HttpServletResponse response) {
+        BankUserDetails user = BankUserDetails.current();
+        List<AccountView> accounts = accountService.getAccountViews(user.getId());
+
+        StringBuilder versions = new StringBuilder();
+        for (AccountView account : accounts) {
+            versions.append(account.getId()).append(':').append(account.getVersion()).append(';');
+        }
+        if (notModified(request, response, quoted(hash(versions.toString())))) {
+            return null;
+        }
+        return accounts;
+    }
+
+    @GetMapping("/accounts/{id}")
+    public AccountView account(@PathVariable Long id, WebRequest request, HttpServletResponse response) {
+        AccountView account = ownedAccount(id);
+        if (notModified(request, response, quoted(account.getId() + "-" + account.getVersion()))) {
+            return null;
+        }
+        return account;
+    }
+
+    @GetMapping("/accounts/{id}/transactions")
+    public void history(@PathVariable Long id,
+                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+                        @RequestParam(required = false) Long beforeId,
+                        @RequestParam(defaultValue = "" + TransactionService.DEFAULT_HISTORY_SIZE) int size,
+                        WebRequest request, HttpServletResponse response) throws IOException {
+        BankUserDetails user = BankUserDetails.current();
+        long version = accountService.getAccountVersion(id, user.getId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Account not found"));
+        int pageSize = Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE));
+        if (before != null && beforeId == null) {
+            beforeId = Long.MAX_VALUE;
+        }
+
+        String page = before == null ? String.valueOf(pageSize) : hash(before + "/" + beforeId + "/" + pageSize);
+        if (notModified(request, response, quoted(id + "-" + version + "-" + page))) {
+            return;
+        }
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            json.writeStartObject();
+            json.writeNumberField("accountId", id);
+            json.writeNumberField("version", version);
+            json.writeArrayFieldStart("transactions");
+
+            // One row past the page tells whether an older page exists
+            RowWriter rows = new RowWriter(json, pageSize);
+            try {
+                transactionService.streamAccountHistory(id, before, beforeId, pageSize + 1, rows);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            json.writeEndArray();
+            json.writeBooleanField("hasMore", rows.hasMore);
+            if (rows.hasMore) {
+                json.writeObjectField("nextBefore", rows.last.getTimestamp());
+                json.writeNumberField("nextBeforeId", rows.last.getId());
+            }
+            json.writeEndObject();
+        }
+    }
+
+    @PostMapping(value = "/accounts/{id}/transactions", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<AccountView> post(@PathVariable Long id, @RequestBody TransactionRequest body) {
+        body.setAccountId(id);
+        Set<ConstraintViolation<TransactionRequest>> violations = validator.validate(body);
+        if (!violations.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, violations.iterator().next().getMessage());
+        }
+
+        BankUserDetails user = BankUserDetails.current();
+        PostedTransaction posted;
+        try {
+            posted = transactionPostingService.post(user.getId(), user.getUsername(), body);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported transaction type");
+        } catch (RuntimeException e) {
+            HttpStatus status = "Account not found".equals(e.getMessage()) ? HttpStatus.NOT_FOUND : HttpStatus.BAD_REQUEST;
+            throw new ResponseStatusException(status, e.getMessage());
+        }
+
+        AccountView account = ownedAccount(id);
+        // A replayed key posted nothing this time
+        return ResponseEntity.status(posted.isReplayed() ? HttpStatus.OK : HttpStatus.CREATED)
+                .eTag(quoted(account.getId() + "-" + account.getVersion()))
+                .body(account);
+    }
+
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<Map<String, String>> error(ResponseStatusException e) {
+        return ResponseEntity.status(e.getStatusCode())
+                .body(Map.of("error", e.getReason() == null ? "Request failed" : e.getReason()));
+    }
+
+    private AccountView ownedAccount(Long id) {
+        return accountService.getAccountView(id, BankUserDetails.current().getId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Account not found"));
+    }
+
+    // Sets the ETag and, when it matches If-None-Match, the 304 status
+    private static boolean notModified(WebRequest request, HttpServletResponse response, String etag) {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, REVALIDATE);
+        return request.checkNotModified(etag);
+    }
+
+    private static String quoted(String tag) {
+        return "\"" + tag + "\"";
+    }
+
+    private static String hash(String value) {
+        return DigestUtils.md5DigestAsHex(value.getBytes(StandardCharsets.UTF_8)).substring(0, 16);
+    }
+
+    private static final class RowWriter implements Consumer<TransactionView> {
+        private final JsonGenerator json;
+        private final int pageSize;
+        private int written;
+        private TransactionView last;
+        private boolean hasMore;
+
+        private RowWriter(JsonGenerator json, int pageSize) {
+            this.json = json;
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        public void accept(TransactionView row) {
+            if (written == pageSize) {
+                hasMore = true;
+                return;
+            }
+            try {
+                json.writeObject(row);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            written++;
+            last = row;
+        }
+    }
+}
@@ -1,24 +1,42 @@
 package com.banking.system.controller;
 
+import com.banking.system.config.BankUserDetails;
+import com.banking.system.dto.AccountSummary;
+import com.banking.system.dto.ImportResult;
+import com.banking.system.dto.KeysetPage;
+import com.banking.system.dto.LogPage;
 import com.banking.system.dto.LoginRequest;
+import com.banking.system.dto.OnboardingResult;
+import com.banking.system.dto.PostedTransaction;
+import com.banking.system.dto.StatementBatchResult;
+import com.banking.system.dto.TransactionPage;
 import com.banking.system.dto.TransactionRequest;
+import com.banking.system.dto.UserSummary;
 import com.banking.system.entity.*;
 import com.banking.system.service.*;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.UUID;
 
 @Controller
 public class MainController {
     
+    private static final List<String> TRANSACTION_FORM_TYPES = List.of("DEPOSIT", "WITHDRAW", "TRANSFER");
+    
     @Autowired
     private UserService userService;
     
@@ -31,6 +49,27 @@ public class MainController {
     @Autowired
     private LogService logService;
     
+    @Autowired
+    private AuditLogWriter auditLogWriter;
+    
+    @Autowired
+    private DashboardStatsService dashboardStats;
+    
+    @Autowired
+    private IdempotencyCache idempotencyCache;
+    
+    @Autowired
+    private TransactionImportService transactionImportService;
+    
+    @Autowired
+    private UserOnboardingService userOnboardingService;
+    
+    @Autowired
+    private StatementService statementService;
+    
+    @Autowired
+    private TransactionPostingService transactionPostingService;
+    
     @GetMapping("/")
     public String home() {
         return "redirect:/dashboard";
@@ -44,10 +83,7 @@ public class MainController {
     
     @GetMapping("/dashboard")
     public String dashboard() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String username = auth.getName();
-        
-        User user = userService.getUserByUsername(username);
+        BankUserDetails user = BankUserDetails.current();
         
         if (user.getRole() == User.Role.ADMIN) {
             return "redirect:/admin/dashboard";
@@ -57,47 +93,63 @@ public class MainController {
     }
     
     @GetMapping("/admin/dashboard")
-    public String adminDashboard(Model model) {
-        List<User> users = userService.getAllUsers();
-        List<Account> accounts = accountService.getAllAccounts();
-        List<Transaction> transactions = transactionService.getAllTransactions();
+    public String adminDashboard(@RequestParam(required = false) Long usersAfter,
+                                 @RequestParam(required = false) Long accountsAfter,
+                                 @RequestParam(defaultValue = "50") int size,
+                                 Model model) {
+        int pageSize = Math.max(1, Math.min(size, 500));
+        KeysetPage<UserSummary> users = userService.getUserSummaries(usersAfter, pageSize);
+        KeysetPage<AccountSummary> accounts = accountService.getAccountSummaries(accountsAfter, pageSize);
         
-        model.addAttribute("users", users);
-        model.addAttribute("accounts", accounts);
-        model.addAttribute("transactions", transactions);
-        model.addAttribute("totalUsers", users.size());
-        model.addAttribute("totalAccounts", accounts.size());
+        model.addAttribute("users", users.getEntries());
+        model.addAttribute("usersPage", users);
+        model.addAttribute("accounts", accounts.getEntries());
+        model.addAttribute("accountsPage", accounts);
+        model.addAttribute("usersAfter", usersAfter);
+        model.addAttribute("accountsAfter", accountsAfter);
+        model.addAttribute("size", pageSize);
+        model.addAttribute("totalUsers", dashboardStats.getTotalUsers());
+        model.addAttribute("totalAccounts", dashboardStats.getTotalAccounts());
+        model.addAttribute("totalBalance", dashboardStats.getTotalBalance());
+        model.addAttribute("dailyVolume", dashboardStats.getDailyVolume());
+        model.addAttribute("idempotency", idempotencyCache);
         
         return "admin-dashboard";
     }
     
     @GetMapping("/user/dashboard")
-    public String userDashboard(Model model) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String username = auth.getName();
-        
-        User user = userService.getUserByUsername(username);
+    public String userDashboard(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+                                @RequestParam(required = false) Long beforeId,
+                                @RequestParam(defaultValue = "" + TransactionService.DEFAULT_HISTORY_SIZE) int size,
+                                Model model) {
+        BankUserDetails user = BankUserDetails.current();
         List<Account> accounts = accountService.getAccountsByUserId(user.getId());
-        List<Transaction> transactions = transactionService.getTransactionsByUserId(user.getId());
+        if (before != null && beforeId == null) {
+            beforeId = Long.MAX_VALUE;
+        }
+        TransactionPage page = transactionService.getTransactionHistory(user.getId(), before, beforeId, size);
         
         model.addAttribute("user", user);
         model.addAttribute("accounts", accounts);
-        model.addAttribute("transactions", transactions);
+        model.addAttribute("transactions", page.getEntries());
+        model.addAttribute("page", page);
+        model.addAttribute("before", before);
+        model.addAttribute("size", size);
+        model.addAttribute("statementMonth", YearMonth.now().minusMonths(1));
         
         return "user-dashboard";
     }
     
     @GetMapping("/transactions")
     public String transactionForm(Model model) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String username = auth.getName();
-        
-        User user = userService.getUserByUsername(username);
+        BankUserDetails user = BankUserDetails.current();
         List<Account> accounts = accountService.getAccountsByUserId(user.getId());
         
-        model.addAttribute("transactionRequest", new TransactionRequest());
+        TransactionRequest transactionRequest = new TransactionRequest();
+        transactionRequest.setIdempotencyKey(UUID.randomUUID().toString());
+        model.addAttribute("transactionRequest", transactionRequest);
         model.addAttribute("accounts", accounts);
-        model.addAttribute("transactionTypes", Transaction.TransactionType.values());
+        model.addAttribute("transactionTypes", TRANSACTION_FORM_TYPES);
         
         return "transaction-form";
     }
@@ -108,27 +160,19 @@ public class MainController {
                                      Model model,
                                      RedirectAttributes redirectAttributes) {
         if (result.hasErrors()) {
-            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-            String username = auth.getName();
-            User user = userService.getUserByUsername(username);
+            BankUserDetails user = BankUserDetails.current();
             List<Account> accounts = accountService.getAccountsByUserId(user.getId());
             
             model.addAttribute("accounts", accounts);
-            model.addAttribute("transactionTypes", Transaction.TransactionType.values());
+            model.addAttribute("transactionTypes", TRANSACTION_FORM_TYPES);
             return "transaction-form";
         }
         
+        BankUserDetails user = BankUserDetails.current();
         try {
-            Transaction.TransactionType type = Transaction.TransactionType.valueOf(request.getType().toUpperCase());
-            transactionService.createTransaction(request.getAccountId(), request.getAmount(), type);
-            
-            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-            String username = auth.getName();
-            User user = userService.getUserByUsername(username);
-            logService.createLog(username + " performed " + type + " of MAD " + request.getAmount(), user);
-            
-            redirectAttributes.addFlashAttribute("successMessage", 
-    type + " of MAD " + request.getAmount() + " completed successfully!");
+            PostedTransaction posted = transactionPostingService.post(user.getId(), user.getUsername(), request);
+            redirectAttributes.addFlashAttribute("successMessage", posted.getType() + " of MAD " + posted.getAmount()
+                    + (posted.isReplayed() ? " was already completed." : " completed successfully!"));
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("errorMessage", "Error: " + e.getMessage());
         }
@@ -137,12 +181,138 @@ public class MainController {
     }
     
     @GetMapping("/admin/logs")
-    public String viewLogs(Model model) {
-        List<Log> logs = logService.getAllLogs();
-        model.addAttribute("logs", logs);
+    public String viewLogs(@RequestParam(required = false) String username,
+                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+                           @RequestParam(required = false) Long beforeId,
+                           @RequestParam(defaultValue = "" + LogService.DEFAULT_PAGE_SIZE) int size,
+                           Model model) {
+        if (before != null && beforeId == null) {
+            beforeId = Long.MAX_VALUE;
+        }
+        LogPage page = logService.getLogPage(username, from, to, before, beforeId, size);
+        
+        model.addAttribute("logs", page.getEntries());
+        model.addAttribute("page", page);
+        model.addAttribute("username", username);
+        model.addAttribute("from", from);
+        model.addAttribute("to", to);
+        model.addAttribute("size", size);
+        model.addAttribute("audit", auditLogWriter);
         return "admin-logs";
     }
     
+    @GetMapping("/admin/logs/export")
+    public void exportLogs(@RequestParam(required = false) String username,
+                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                           HttpServletResponse response) throws IOException {
+        response.setContentType("text/csv");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=\"securebank-logs.csv\"");
+        logService.exportLogsCsv(username, from, to, response.getWriter());
+    }
+    
+    @GetMapping("/user/statements")
+    public void downloadStatement(@RequestParam Long accountId,
+                                  @RequestParam String month,
+                                  @RequestParam(defaultValue = "CSV") String format,
+                                  HttpServletResponse response) throws IOException {
+        BankUserDetails user = BankUserDetails.current();
+        YearMonth statementMonth;
+        StatementService.Format statementFormat;
+        try {
+            statementMonth = YearMonth.parse(month);
+            statementFormat = StatementService.Format.of(format);
+        } catch (RuntimeException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid statement month or format");
+            return;
+        }
+        if (!accountService.isOwnedBy(accountId, user.getId())) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Account not found");
+            return;
+        }
+        
+        if (statementFormat == StatementService.Format.CSV) {
+            response.setContentType("text/csv");
+            response.setHeader("Content-Disposition",
+                    "attachment; filename=\"statement-" + accountId + "-" + statementMonth + ".csv\"");
+        } else {
+            response.setContentType("text/html");
+        }
+        response.setCharacterEncoding("UTF-8");
+        statementService.writeStatement(accountId, statementMonth, statementFormat, response.getWriter());
+    }
+    
+    @PostMapping("/admin/statements/batch")
+    public String generateStatements(@RequestParam String month,
+                                     @RequestParam(defaultValue = "CSV") String format,
+                                     RedirectAttributes redirectAttributes) {
+        try {
+            StatementBatchResult result = statementService.generateAll(YearMonth.parse(month),
+                    StatementService.Format.of(format));
+            
+            BankUserDetails user = BankUserDetails.current();
+            logService.createLog(user.getUsername() + " generated " + result.getAccounts() + " statements for "
+                    + result.getMonth() + " (" + result.getFailed() + " failed)", user.getId());
+            redirectAttributes.addFlashAttribute("successMessage", String.format(
+                    "Generated %d statements for %s in %.1f s (%.1f accounts/s, %d failed)",
+                    result.getAccounts(), result.getMonth(), result.getElapsedMillis() / 1000.0,
+                    result.getAccountsPerSecond(), result.getFailed()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            redirectAttributes.addFlashAttribute("errorMessage", "Error: statement batch interrupted");
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("errorMessage", "Error: " + e.getMessage());
+        }
+        return "redirect:/admin/dashboard";
+    }
+    
+    @PostMapping("/admin/transactions/import")
+    public void importTransactions(@RequestParam("file") MultipartFile file,
+                                   @RequestParam(required = false) String format,
+                                   @RequestParam(defaultValue = "false") boolean rejectedOnly,
+                                   HttpServletResponse response) throws IOException {
+        TransactionImportService.Format importFormat;
+        try {
+            importFormat = TransactionImportService.Format.of(format, file.getOriginalFilename());
+        } catch (RuntimeException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+        
+        response.setContentType("text/csv");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=\"securebank-import-report.csv\"");
+        ImportResult result;
+        try (InputStream input = file.getInputStream()) {
+            result = transactionImportService.importTransactions(input, importFormat, response.getWriter(), rejectedOnly);
+        }
+        
+        BankUserDetails user = BankUserDetails.current();
+        logService.createLog(user.getUsername() + " imported " + result.getAccepted() + " transactions from "
+                + file.getOriginalFilename() + " (" + result.getRejected() + " rejected)", user.getId());
+    }
+    
+    @PostMapping("/admin/users/import")
+    public void importUsers(@RequestParam("file") MultipartFile file,
+                            @RequestParam(defaultValue = "false") boolean rejectedOnly,
+                            HttpServletResponse response) throws IOException, InterruptedException {
+        response.setContentType("text/csv");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=\"securebank-onboarding-report.csv\"");
+        OnboardingResult result;
+        try (InputStream input = file.getInputStream()) {
+            result = userOnboardingService.onboard(input, response.getWriter(), rejectedOnly);
+        }
+        
+        BankUserDetails user = BankUserDetails.current();
+        logService.createLog(String.format("%s onboarded %d users from %s (%d rejected, %.0f users/s)",
+                user.getUsername(), result.getCreated(), file.getOriginalFilename(), result.getRejected(),
+                result.getUsersPerSecond()), user.getId());
+    }
+    
     @GetMapping("/admin/create-user")
     public String createUserForm(Model model) {
         model.addAttribute("user", new User());
@@ -186,9 +356,7 @@ public class MainController {
     @PostMapping("/user/delete-account")
     public String deleteAccount(@RequestParam Long accountId, RedirectAttributes redirectAttributes) {
         try {
-            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-            String username = auth.getName();
-            User user = userService.getUserByUsername(username);
+            BankUserDetails user = BankUserDetails.current();
             
             Account account = accountService.getAccountById(accountId);
             if (!account.getUser().getId().equals(user.getId())) {
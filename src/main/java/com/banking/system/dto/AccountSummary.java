@@ -0,0 +1,22 @@
+package com.banking.system.dto;
+
+import java.math.BigDecimal;
+
+public class AccountSummary {
+    private final Long id;
+    private final String accountNumber;
+    private final String username;
+    private final BigDecimal balance;
+    
+    public AccountSummary(Long id, String accountNumber, String username, BigDecimal balance) {
+        this.id = id;
+        this.accountNumber = accountNumber;
+        this.username = username;
+        this.balance = balance;
+    }
+    
+    public Long getId() { return id; }
+    public String getAccountNumber() { return accountNumber; }
+    public String getUsername() { return username; }
+    public BigDecimal getBalance() { return balance; }
+}
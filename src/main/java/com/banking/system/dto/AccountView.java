@@ -0,0 +1,22 @@
+package com.banking.system.dto;
+
+import java.math.BigDecimal;
+
+public class AccountView {
+    private final Long id;
+    private final String accountNumber;
+    private final BigDecimal balance;
+    private final long version;
+    
+    public AccountView(Long id, String accountNumber, BigDecimal balance, long version) {
+        this.id = id;
+        this.accountNumber = accountNumber;
+        this.balance = balance;
+        this.version = version;
+    }
+    
+    public Long getId() { return id; }
+    public String getAccountNumber() { return accountNumber; }
+    public BigDecimal getBalance() { return balance; }
+    public long getVersion() { return version; }
+}
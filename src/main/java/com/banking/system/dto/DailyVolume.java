@@ -0,0 +1,20 @@
+package com.banking.system.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public class DailyVolume {
+    private final LocalDate day;
+    private final long count;
+    private final BigDecimal amount;
+    
+    public DailyVolume(LocalDate day, long count, BigDecimal amount) {
+        this.day = day;
+        this.count = count;
+        this.amount = amount;
+    }
+    
+    public LocalDate getDay() { return day; }
+    public long getCount() { return count; }
+    public BigDecimal getAmount() { return amount; }
+}
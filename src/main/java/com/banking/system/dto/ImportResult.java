@@ -0,0 +1,20 @@
+package com.banking.system.dto;
+
+public class ImportResult {
+    private final long lines;
+    private final long accepted;
+    private final long rejected;
+    private final long elapsedMillis;
+    
+    public ImportResult(long lines, long accepted, long rejected, long elapsedMillis) {
+        this.lines = lines;
+        this.accepted = accepted;
+        this.rejected = rejected;
+        this.elapsedMillis = elapsedMillis;
+    }
+    
+    public long getLines() { return lines; }
+    public long getAccepted() { return accepted; }
+    public long getRejected() { return rejected; }
+    public long getElapsedMillis() { return elapsedMillis; }
+}
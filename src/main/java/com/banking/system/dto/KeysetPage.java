@@ -0,0 +1,29 @@
+package com.banking.system.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+// One page of rows ordered by id, with the id to continue after
+public class KeysetPage<T> {
+    private final List<T> entries;
+    private final boolean hasMore;
+    private final Long nextAfterId;
+    
+    private KeysetPage(List<T> entries, boolean hasMore, Long nextAfterId) {
+        this.entries = entries;
+        this.hasMore = hasMore;
+        this.nextAfterId = nextAfterId;
+    }
+    
+    // rows must have been fetched with a limit of size + 1
+    public static <T> KeysetPage<T> of(List<T> rows, int size, Function<T, Long> idOf) {
+        boolean hasMore = rows.size() > size;
+        List<T> entries = hasMore ? rows.subList(0, size) : rows;
+        Long nextAfterId = entries.isEmpty() ? null : idOf.apply(entries.get(entries.size() - 1));
+        return new KeysetPage<>(entries, hasMore, nextAfterId);
+    }
+    
+    public List<T> getEntries() { return entries; }
+    public boolean isHasMore() { return hasMore; }
+    public Long getNextAfterId() { return nextAfterId; }
+}
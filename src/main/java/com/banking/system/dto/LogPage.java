@@ -0,0 +1,26 @@
+package com.banking.system.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class LogPage {
+    private final List<LogView> entries;
+    private final boolean hasMore;
+    
+    public LogPage(List<LogView> entries, boolean hasMore) {
+        this.entries = entries;
+        this.hasMore = hasMore;
+    }
+    
+    public List<LogView> getEntries() { return entries; }
+    public boolean isHasMore() { return hasMore; }
+    
+    // Cursor for the next (older) page: the last row of this one
+    public LocalDateTime getNextTimestamp() {
+        return entries.isEmpty() ? null : entries.get(entries.size() - 1).getTimestamp();
+    }
+    
+    public Long getNextId() {
+        return entries.isEmpty() ? null : entries.get(entries.size() - 1).getId();
+    }
+}
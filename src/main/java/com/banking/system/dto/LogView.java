@@ -0,0 +1,22 @@
+package com.banking.system.dto;
+
+import java.time.LocalDateTime;
+
+public class LogView {
+    private final Long id;
+    private final LocalDateTime timestamp;
+    private final String username;
+    private final String action;
+    
+    public LogView(Long id, LocalDateTime timestamp, String username, String action) {
+        this.id = id;
+        this.timestamp = timestamp;
+        this.username = username;
+        this.action = action;
+    }
+    
+    public Long getId() { return id; }
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public String getUsername() { return username; }
+    public String getAction() { return action; }
+}
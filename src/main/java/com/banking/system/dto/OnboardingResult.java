@@ -0,0 +1,24 @@
+package com.banking.system.dto;
+
+public class OnboardingResult {
+    private final long lines;
+    private final long created;
+    private final long rejected;
+    private final long elapsedMillis;
+    
+    public OnboardingResult(long lines, long created, long rejected, long elapsedMillis) {
+        this.lines = lines;
+        this.created = created;
+        this.rejected = rejected;
+        this.elapsedMillis = elapsedMillis;
+    }
+    
+    public long getLines() { return lines; }
+    public long getCreated() { return created; }
+    public long getRejected() { return rejected; }
+    public long getElapsedMillis() { return elapsedMillis; }
+    
+    public double getUsersPerSecond() {
+        return elapsedMillis == 0 ? created : created * 1000.0 / elapsedMillis;
+    }
+}
@@ -0,0 +1,31 @@
+package com.banking.system.dto;
+
+import com.banking.system.entity.Transaction;
+import java.math.BigDecimal;
+
+// What a posting request did; for a replayed idempotency key, what the original request did
+public class PostedTransaction {
+    private final String type;
+    private final BigDecimal amount;
+    private final boolean replayed;
+    
+    public PostedTransaction(String type, BigDecimal amount, boolean replayed) {
+        this.type = type;
+        this.amount = amount;
+        this.replayed = replayed;
+    }
+    
+    // A transfer's key is on its outgoing leg
+    public static PostedTransaction of(Transaction row, boolean replayed) {
+        String type = row.getType() == Transaction.TransactionType.TRANSFER_OUT ? "TRANSFER" : row.getType().name();
+        return new PostedTransaction(type, row.getAmount(), replayed);
+    }
+    
+    public PostedTransaction asReplay() {
+        return replayed ? this : new PostedTransaction(type, amount, true);
+    }
+    
+    public String getType() { return type; }
+    public BigDecimal getAmount() { return amount; }
+    public boolean isReplayed() { return replayed; }
+}
@@ -0,0 +1,26 @@
+package com.banking.system.dto;
+
+import java.time.YearMonth;
+
+public class StatementBatchResult {
+    private final YearMonth month;
+    private final long accounts;
+    private final long failed;
+    private final long elapsedMillis;
+    
+    public StatementBatchResult(YearMonth month, long accounts, long failed, long elapsedMillis) {
+        this.month = month;
+        this.accounts = accounts;
+        this.failed = failed;
+        this.elapsedMillis = elapsedMillis;
+    }
+    
+    public YearMonth getMonth() { return month; }
+    public long getAccounts() { return accounts; }
+    public long getFailed() { return failed; }
+    public long getElapsedMillis() { return elapsedMillis; }
+    
+    public double getAccountsPerSecond() {
+        return elapsedMillis == 0 ? accounts : accounts * 1000.0 / elapsedMillis;
+    }
+}
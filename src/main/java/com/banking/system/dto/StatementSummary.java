@@ -0,0 +1,33 @@
+package com.banking.system.dto;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+
+public class StatementSummary {
+    private final String accountNumber;
+    private final YearMonth month;
+    private final BigDecimal openingBalance;
+    private final BigDecimal closingBalance;
+    private final BigDecimal totalCredits;
+    private final BigDecimal totalDebits;
+    private final long transactionCount;
+    
+    public StatementSummary(String accountNumber, YearMonth month, BigDecimal openingBalance, BigDecimal closingBalance,
+                            BigDecimal totalCredits, BigDecimal totalDebits, long transactionCount) {
+        this.accountNumber = accountNumber;
+        this.month = month;
+        this.openingBalance = openingBalance;
+        this.closingBalance = closingBalance;
+        this.totalCredits = totalCredits;
+        this.totalDebits = totalDebits;
+        this.transactionCount = transactionCount;
+    }
+    
+    public String getAccountNumber() { return accountNumber; }
+    public YearMonth getMonth() { return month; }
+    public BigDecimal getOpeningBalance() { return openingBalance; }
+    public BigDecimal getClosingBalance() { return closingBalance; }
+    public BigDecimal getTotalCredits() { return totalCredits; }
+    public BigDecimal getTotalDebits() { return totalDebits; }
+    public long getTransactionCount() { return transactionCount; }
+}
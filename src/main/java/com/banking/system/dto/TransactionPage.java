@@ -0,0 +1,26 @@
+package com.banking.system.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class TransactionPage {
+    private final List<TransactionView> entries;
+    private final boolean hasMore;
+    
+    public TransactionPage(List<TransactionView> entries, boolean hasMore) {
+        this.entries = entries;
+        this.hasMore = hasMore;
+    }
+    
+    public List<TransactionView> getEntries() { return entries; }
+    public boolean isHasMore() { return hasMore; }
+    
+    // Cursor for the next (older) page: the last row of this one
+    public LocalDateTime getNextTimestamp() {
+        return entries.isEmpty() ? null : entries.get(entries.size() - 1).getTimestamp();
+    }
+    
+    public Long getNextId() {
+        return entries.isEmpty() ? null : entries.get(entries.size() - 1).getId();
+    }
+}
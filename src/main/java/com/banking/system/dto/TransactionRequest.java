@@ -3,6 +3,7 @@ package com.banking.system.dto;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import java.math.BigDecimal;
 
 public class TransactionRequest {
@@ -17,6 +18,14 @@ public class TransactionRequest {
     @NotBlank(message = "Transaction type is required")
     private String type;
     
+    // Target of a TRANSFER
+    @Size(max = 64, message = "Account number is too long")
+    private String targetAccountNumber;
+    
+    // Generated when the form is rendered; resubmitting the same form posts nothing new
+    @Size(max = 64, message = "Idempotency key is too long")
+    private String idempotencyKey;
+    
     public Long getAccountId() { return accountId; }
     public void setAccountId(Long accountId) { this.accountId = accountId; }
     
@@ -25,4 +34,10 @@ public class TransactionRequest {
     
     public String getType() { return type; }
     public void setType(String type) { this.type = type; }
+    
+    public String getTargetAccountNumber() { return targetAccountNumber; }
+    public void setTargetAccountNumber(String targetAccountNumber) { this.targetAccountNumber = targetAccountNumber; }
+    
+    public String getIdempotencyKey() { return idempotencyKey; }
+    public void setIdempotencyKey(String idempotencyKey) { this.idempotencyKey = idempotencyKey; }
 }
@@ -0,0 +1,35 @@
+package com.banking.system.dto;
+
+import com.banking.system.entity.Transaction;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public class TransactionView {
+    private final Long id;
+    private final BigDecimal amount;
+    private final Transaction.TransactionType type;
+    private final LocalDateTime timestamp;
+    private final String accountNumber;
+    private final String counterpartyAccountNumber;
+    private final BigDecimal balanceAfter;
+    
+    public TransactionView(Long id, BigDecimal amount, Transaction.TransactionType type,
+                           LocalDateTime timestamp, String accountNumber, String counterpartyAccountNumber,
+                           BigDecimal balanceAfter) {
+        this.id = id;
+        this.amount = amount;
+        this.type = type;
+        this.timestamp = timestamp;
+        this.accountNumber = accountNumber;
+        this.counterpartyAccountNumber = counterpartyAccountNumber;
+        this.balanceAfter = balanceAfter;
+    }
+    
+    public Long getId() { return id; }
+    public BigDecimal getAmount() { return amount; }
+    public Transaction.TransactionType getType() { return type; }
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public String getAccountNumber() { return accountNumber; }
+    public String getCounterpartyAccountNumber() { return counterpartyAccountNumber; }
+    public BigDecimal getBalanceAfter() { return balanceAfter; }
+}
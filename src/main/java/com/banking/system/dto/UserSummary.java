@@ -0,0 +1,22 @@
+package com.banking.system.dto;
+
+import com.banking.system.entity.User;
+
+public class UserSummary {
+    private final Long id;
+    private final String username;
+    private final User.Role role;
+    private final long accountCount;
+    
+    public UserSummary(Long id, String username, User.Role role, long accountCount) {
+        this.id = id;
+        this.username = username;
+        this.role = role;
+        this.accountCount = accountCount;
+    }
+    
+    public Long getId() { return id; }
+    public String getUsername() { return username; }
+    public User.Role getRole() { return role; }
+    public long getAccountCount() { return accountCount; }
+}
@@ -3,11 +3,17 @@ package com.banking.system.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@NamedEntityGraph(name = "Account.user", attributeNodes = @NamedAttributeNode("user"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "accounts")
 public class Account {
     
@@ -23,6 +29,13 @@ public class Account {
     @DecimalMin(value = "0.0", message = "Balance cannot be negative")
     private BigDecimal balance = BigDecimal.ZERO;
     
+    // Incremented by every balance change, including the native and JDBC UPDATEs, so entity
+    // updates and deletes fail on an account that changed since it was read. API ETags use it too
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long version;
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -30,6 +43,9 @@ public class Account {
     @OneToMany(mappedBy = "account", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Transaction> transactions = new ArrayList<>();
     
+    @OneToMany(mappedBy = "account", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    private List<BalanceSnapshot> snapshots = new ArrayList<>();
+    
     public Account() {}
     
     public Account(String accountNumber, User user) {
@@ -46,9 +62,14 @@ public class Account {
     public BigDecimal getBalance() { return balance; }
     public void setBalance(BigDecimal balance) { this.balance = balance; }
     
+    public long getVersion() { return version; }
+    
     public User getUser() { return user; }
     public void setUser(User user) { this.user = user; }
     
     public List<Transaction> getTransactions() { return transactions; }
     public void setTransactions(List<Transaction> transactions) { this.transactions = transactions; }
+    
+    public List<BalanceSnapshot> getSnapshots() { return snapshots; }
+    public void setSnapshots(List<BalanceSnapshot> snapshots) { this.snapshots = snapshots; }
 }
@@ -0,0 +1,48 @@
+package com.banking.system.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Balance of an account at the end of a day on which it had transactions
+@Entity
+@Table(name = "balance_snapshots", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_balance_snapshots_account_date", columnNames = {"account_id", "snapshot_date"})
+})
+public class BalanceSnapshot {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id", nullable = false)
+    private Account account;
+    
+    @Column(name = "snapshot_date", nullable = false)
+    private LocalDate snapshotDate;
+    
+    @Column(nullable = false)
+    private BigDecimal balance;
+    
+    // Last transaction included in the balance
+    @Column(name = "transaction_id", nullable = false)
+    private Long transactionId;
+    
+    public BalanceSnapshot() {}
+    
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Account getAccount() { return account; }
+    public void setAccount(Account account) { this.account = account; }
+    
+    public LocalDate getSnapshotDate() { return snapshotDate; }
+    public void setSnapshotDate(LocalDate snapshotDate) { this.snapshotDate = snapshotDate; }
+    
+    public BigDecimal getBalance() { return balance; }
+    public void setBalance(BigDecimal balance) { this.balance = balance; }
+    
+    public Long getTransactionId() { return transactionId; }
+    public void setTransactionId(Long transactionId) { this.transactionId = transactionId; }
+}
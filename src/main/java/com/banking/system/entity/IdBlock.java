@@ -0,0 +1,29 @@
+package com.banking.system.entity;
+
+import jakarta.persistence.*;
+
+// Next unallocated id per named sequence; see TransactionIdAllocator
+@Entity
+@Table(name = "id_blocks")
+public class IdBlock {
+    
+    @Id
+    @Column(length = 64)
+    private String name;
+    
+    @Column(name = "next_val", nullable = false)
+    private Long nextVal;
+    
+    public IdBlock() {}
+    
+    public IdBlock(String name, Long nextVal) {
+        this.name = name;
+        this.nextVal = nextVal;
+    }
+    
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    
+    public Long getNextVal() { return nextVal; }
+    public void setNextVal(Long nextVal) { this.nextVal = nextVal; }
+}
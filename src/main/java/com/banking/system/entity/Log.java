@@ -5,7 +5,11 @@ import jakarta.validation.constraints.NotBlank;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "logs")
+@NamedEntityGraph(name = "Log.user", attributeNodes = @NamedAttributeNode("user"))
+@Table(name = "logs", indexes = {
+    @Index(name = "idx_logs_timestamp_id", columnList = "timestamp, id"),
+    @Index(name = "idx_logs_user_timestamp", columnList = "user_id, timestamp")
+})
 public class Log {
     
     @Id
@@ -1,17 +1,29 @@
 package com.banking.system.entity;
 
+import com.banking.system.service.TransactionIdGenerator;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "transactions")
+@NamedEntityGraph(name = "Transaction.account", attributeNodes = @NamedAttributeNode("account"))
+@Table(name = "transactions", indexes = {
+    @Index(name = "idx_transactions_timestamp", columnList = "timestamp"),
+    @Index(name = "idx_transactions_account_timestamp", columnList = "account_id, timestamp")
+}, uniqueConstraints = {
+    @UniqueConstraint(name = "uk_transactions_account_idempotency_key", columnNames = {"account_id", "idempotency_key"})
+})
 public class Transaction {
     
+    // Ids are handed out in blocks (see TransactionIdAllocator) so rows can be inserted in JDBC batches
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "transaction_ids")
+    @GenericGenerator(name = "transaction_ids", type = TransactionIdGenerator.class)
     private Long id;
     
     @Column(nullable = false)
@@ -19,19 +31,37 @@ public class Transaction {
     @DecimalMin(value = "0.01", message = "Amount must be greater than 0")
     private BigDecimal amount;
     
+    // Plain VARCHAR rather than a MySQL ENUM, so new types need no schema change
     @Enumerated(EnumType.STRING)
-    @Column(nullable = false)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(nullable = false, length = 20)
     private TransactionType type;
     
     @Column(nullable = false)
     private LocalDateTime timestamp;
     
+    // Account balance right after this row was applied; null until old rows are backfilled
+    @Column(name = "balance_after")
+    private BigDecimal balanceAfter;
+    
+    @Column(name = "idempotency_key", length = 64)
+    private String idempotencyKey;
+    
+    // Other side of a transfer; a plain number so deleting that account leaves this row intact
+    @Column(name = "counterparty_account_number")
+    private String counterpartyAccountNumber;
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "account_id", nullable = false)
     private Account account;
     
+    // A transfer is recorded as a TRANSFER_OUT row on the source and a TRANSFER_IN row on the target
     public enum TransactionType {
-        DEPOSIT, WITHDRAW
+        DEPOSIT, WITHDRAW, TRANSFER_OUT, TRANSFER_IN;
+        
+        public boolean isCredit() {
+            return this == DEPOSIT || this == TRANSFER_IN;
+        }
     }
     
     public Transaction() {}
@@ -55,6 +85,15 @@ public class Transaction {
     public LocalDateTime getTimestamp() { return timestamp; }
     public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
     
+    public BigDecimal getBalanceAfter() { return balanceAfter; }
+    public void setBalanceAfter(BigDecimal balanceAfter) { this.balanceAfter = balanceAfter; }
+    
+    public String getIdempotencyKey() { return idempotencyKey; }
+    public void setIdempotencyKey(String idempotencyKey) { this.idempotencyKey = idempotencyKey; }
+    
+    public String getCounterpartyAccountNumber() { return counterpartyAccountNumber; }
+    public void setCounterpartyAccountNumber(String counterpartyAccountNumber) { this.counterpartyAccountNumber = counterpartyAccountNumber; }
+    
     public Account getAccount() { return account; }
     public void setAccount(Account account) { this.account = account; }
 }
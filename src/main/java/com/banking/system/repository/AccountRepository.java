@@ -1,14 +1,69 @@
 package com.banking.system.repository;
 
+import com.banking.system.dto.AccountSummary;
+import com.banking.system.dto.AccountView;
 import com.banking.system.entity.Account;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AccountRepository extends JpaRepository<Account, Long> {
     Optional<Account> findByAccountNumber(String accountNumber);
-    List<Account> findByUserId(Long userId);
-    boolean existsByAccountNumber(String accountNumber);
+    
+    // Owners come in the same query; pages read AccountSummary / AccountView instead
+    @Override
+    @EntityGraph("Account.user")
+    List<Account> findAll();
+    
+    // Cached ids only: cached rows would carry balances, which change without invalidating the query cache
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("SELECT a.id FROM Account a WHERE a.user.id = :userId ORDER BY a.id")
+    List<Long> findIdsByUserId(@Param("userId") Long userId);
+    
+    @Query("SELECT new com.banking.system.dto.AccountSummary(a.id, a.accountNumber, u.username, a.balance) " +
+           "FROM Account a JOIN a.user u WHERE a.id > :afterId ORDER BY a.id")
+    List<AccountSummary> findSummariesAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query("SELECT new com.banking.system.dto.AccountView(a.id, a.accountNumber, a.balance, a.version) " +
+           "FROM Account a WHERE a.user.id = :userId ORDER BY a.id")
+    List<AccountView> findViewsByUserId(@Param("userId") Long userId);
+    
+    @Query("SELECT new com.banking.system.dto.AccountView(a.id, a.accountNumber, a.balance, a.version) " +
+           "FROM Account a WHERE a.id = :id AND a.user.id = :userId")
+    Optional<AccountView> findViewByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+    
+    @Query("SELECT a.version FROM Account a WHERE a.id = :id AND a.user.id = :userId")
+    Optional<Long> findVersionByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+    
+    @Query("SELECT COALESCE(SUM(a.balance), 0) FROM Account a")
+    BigDecimal sumBalances();
+    
+    boolean existsByIdAndUserId(Long id, Long userId);
+    
+    @Query("SELECT a.balance FROM Account a WHERE a.id = :id")
+    BigDecimal findBalanceById(@Param("id") Long id);
+    
+    // Balance changes are applied in the database so concurrent updates never overwrite each other.
+    // Without a declared space Hibernate would clear the whole second-level cache after each one;
+    // callers lock the changed account's entry through CacheInvalidator instead
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "account_balances"))
+    @Query(value = "UPDATE accounts SET balance = balance + :amount, version = version + 1 WHERE id = :id", nativeQuery = true)
+    int addToBalance(@Param("id") Long id, @Param("amount") BigDecimal amount);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "account_balances"))
+    @Query(value = "UPDATE accounts SET balance = balance - :amount, version = version + 1 WHERE id = :id AND balance >= :amount", nativeQuery = true)
+    int subtractFromBalance(@Param("id") Long id, @Param("amount") BigDecimal amount);
 }
@@ -0,0 +1,13 @@
+package com.banking.system.repository;
+
+import com.banking.system.entity.BalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Repository
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, Long> {
+    Optional<BalanceSnapshot> findFirstByAccountIdAndSnapshotDateLessThanOrderBySnapshotDateDesc(Long accountId,
+                                                                                                 LocalDate day);
+}
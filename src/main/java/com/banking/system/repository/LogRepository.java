@@ -1,12 +1,38 @@
 package com.banking.system.repository;
 
+import com.banking.system.dto.LogView;
 import com.banking.system.entity.Log;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface LogRepository extends JpaRepository<Log, Long> {
+    // Each row's user is joined in, for callers that show log.user.username
+    @EntityGraph("Log.user")
     List<Log> findAllByOrderByTimestampDesc();
+    
+    @EntityGraph("Log.user")
     List<Log> findByUserIdOrderByTimestampDesc(Long userId);
+    
+    // Keyset page over (timestamp, id) descending; pass PageRequest.of(0, n) so only a LIMIT is applied
+    @Query("SELECT new com.banking.system.dto.LogView(l.id, l.timestamp, u.username, l.action) " +
+           "FROM Log l JOIN l.user u " +
+           "WHERE (:username IS NULL OR u.username = :username) " +
+           "AND (:from IS NULL OR l.timestamp >= :from) " +
+           "AND (:to IS NULL OR l.timestamp < :to) " +
+           "AND (:beforeTimestamp IS NULL OR l.timestamp < :beforeTimestamp " +
+           "     OR (l.timestamp = :beforeTimestamp AND l.id < :beforeId)) " +
+           "ORDER BY l.timestamp DESC, l.id DESC")
+    List<LogView> findPage(@Param("username") String username,
+                           @Param("from") LocalDateTime from,
+                           @Param("to") LocalDateTime to,
+                           @Param("beforeTimestamp") LocalDateTime beforeTimestamp,
+                           @Param("beforeId") Long beforeId,
+                           Pageable pageable);
 }
@@ -1,12 +1,82 @@
 package com.banking.system.repository;
 
+import com.banking.system.dto.DailyVolume;
+import com.banking.system.dto.TransactionView;
 import com.banking.system.entity.Transaction;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+    // Entity lists join the account in rather than loading it once per row
+    @Override
+    @EntityGraph("Transaction.account")
+    List<Transaction> findAll();
+    
+    @EntityGraph("Transaction.account")
     List<Transaction> findByAccountIdOrderByTimestampDesc(Long accountId);
+    
+    @EntityGraph("Transaction.account")
     List<Transaction> findByAccount_User_IdOrderByTimestampDesc(Long userId);
+    
+    Optional<Transaction> findByAccount_IdAndIdempotencyKey(Long accountId, String idempotencyKey);
+    Optional<Transaction> findFirstByAccountIdAndTimestampLessThanEqualOrderByTimestampDescIdDesc(Long accountId,
+                                                                                                 LocalDateTime at);
+    Optional<Transaction> findFirstByAccountIdAndTimestampLessThanOrderByTimestampDescIdDesc(Long accountId,
+                                                                                            LocalDateTime before);
+    
+    // Net effect of an account's rows from the given time (null: the first row) up to and including the given row
+    @Query("SELECT COALESCE(SUM(CASE WHEN t.type IN :credits THEN t.amount ELSE -t.amount END), 0) " +
+           "FROM Transaction t WHERE t.account.id = :accountId " +
+           "AND (:from IS NULL OR t.timestamp >= :from) " +
+           "AND (t.timestamp < :throughTimestamp OR (t.timestamp = :throughTimestamp AND t.id <= :throughId))")
+    BigDecimal sumSignedAmounts(@Param("accountId") Long accountId,
+                                @Param("credits") Collection<Transaction.TransactionType> credits,
+                                @Param("from") LocalDateTime from,
+                                @Param("throughTimestamp") LocalDateTime throughTimestamp,
+                                @Param("throughId") Long throughId);
+    
+    // Keyset page over (timestamp, id) descending; pass PageRequest.of(0, n) so only a LIMIT is applied
+    @Query("SELECT new com.banking.system.dto.TransactionView(t.id, t.amount, t.type, t.timestamp, a.accountNumber, " +
+           "t.counterpartyAccountNumber, t.balanceAfter) " +
+           "FROM Transaction t JOIN t.account a " +
+           "WHERE a.user.id = :userId " +
+           "AND (:beforeTimestamp IS NULL OR t.timestamp < :beforeTimestamp " +
+           "     OR (t.timestamp = :beforeTimestamp AND t.id < :beforeId)) " +
+           "ORDER BY t.timestamp DESC, t.id DESC")
+    List<TransactionView> findHistoryPage(@Param("userId") Long userId,
+                                          @Param("beforeTimestamp") LocalDateTime beforeTimestamp,
+                                          @Param("beforeId") Long beforeId,
+                                          Pageable pageable);
+    
+    // Same keyset order for one account, read as a stream so callers can write rows out as they arrive
+    @Query("SELECT new com.banking.system.dto.TransactionView(t.id, t.amount, t.type, t.timestamp, a.accountNumber, " +
+           "t.counterpartyAccountNumber, t.balanceAfter) " +
+           "FROM Transaction t JOIN t.account a " +
+           "WHERE a.id = :accountId " +
+           "AND (:beforeTimestamp IS NULL OR t.timestamp < :beforeTimestamp " +
+           "     OR (t.timestamp = :beforeTimestamp AND t.id < :beforeId)) " +
+           "ORDER BY t.timestamp DESC, t.id DESC")
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    Stream<TransactionView> streamAccountHistory(@Param("accountId") Long accountId,
+                                                 @Param("beforeTimestamp") LocalDateTime beforeTimestamp,
+                                                 @Param("beforeId") Long beforeId,
+                                                 Pageable pageable);
+    
+    @Query("SELECT new com.banking.system.dto.DailyVolume(CAST(t.timestamp AS LocalDate), COUNT(t), SUM(t.amount)) " +
+           "FROM Transaction t WHERE t.timestamp >= :since " +
+           "GROUP BY CAST(t.timestamp AS LocalDate)")
+    List<DailyVolume> findDailyVolumeSince(@Param("since") LocalDateTime since);
 }
@@ -1,12 +1,45 @@
 package com.banking.system.repository;
 
+import com.banking.system.dto.UserSummary;
 import com.banking.system.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByUsername(String username);
+    
     boolean existsByUsername(String username);
+    
+    // With their accounts in one query: list callers count them, deleteUser checks their balances
+    @Override
+    @EntityGraph("User.accounts")
+    List<User> findAll();
+    
+    @EntityGraph("User.accounts")
+    Optional<User> findWithAccountsById(Long id);
+    
+    @Query("SELECT new com.banking.system.dto.UserSummary(u.id, u.username, u.role, COUNT(a)) " +
+           "FROM User u LEFT JOIN u.accounts a " +
+           "WHERE u.id > :afterId " +
+           "GROUP BY u.id, u.username, u.role ORDER BY u.id")
+    List<UserSummary> findSummariesAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    // Called by the login flow, outside any service transaction
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :id")
+    int updatePassword(@Param("id") Long id, @Param("password") String password);
 }
@@ -0,0 +1,215 @@
+package com.banking.system.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out account numbers: "ACC", a 10-digit sequence number and a Luhn check
+ * digit. Sequence numbers are reserved from the id_blocks table a block at a time
+ * and served from memory with a single atomic increment, so no uniqueness check
+ * is needed. The next block is reserved in the background once half of the
+ * current one is used, so account creation, which runs inside the caller's
+ * transaction, normally never waits for a reservation; only the thread that finds
+ * the block used up takes the lock and switches to it.
+ *
+ * Numbers from before this allocator ("ACC" + 8 hex characters) are shorter, so
+ * the two formats cannot collide.
+ */
+@Service
+@DependsOn("entityManagerFactory")
+public class AccountNumberAllocator {
+    
+    private static final String SEGMENT = "accounts";
+    private static final String PREFIX = "ACC";
+    private static final int DIGITS = 10;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private IdBlocks idBlocks;
+    
+    @Value("${app.account-numbers.block-size:1000}")
+    private int blockSize;
+    
+    private final ExecutorService prefetcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "account-number-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private final ReentrantLock refillLock = new ReentrantLock();
+    private volatile Block block;
+    // Reservation of the block after the current one, guarded by refillLock
+    private Future<Long> prefetched;
+    
+    @PostConstruct
+    public void init() {
+        if (jdbcTemplate.queryForList("SELECT next_val FROM id_blocks WHERE name = ?", Long.class, SEGMENT).isEmpty()) {
+            try {
+                jdbcTemplate.update("INSERT INTO id_blocks (name, next_val) VALUES (?, 1)", SEGMENT);
+            } catch (DuplicateKeyException e) {
+                // Another instance created it first
+            }
+        }
+        long first = idBlocks.reserve(SEGMENT, blockSize);
+        block = new Block(first, first + blockSize);
+    }
+    
+    @PreDestroy
+    public void stop() {
+        prefetcher.shutdownNow();
+    }
+    
+    public String next() {
+        while (true) {
+            Block current = block;
+            long sequence = current.next.getAndIncrement();
+            if (sequence < current.end) {
+                // Exactly one caller draws the halfway sequence
+                if (sequence == current.prefetchAt) {
+                    prefetch();
+                }
+                return format(sequence);
+            }
+            refill(current);
+        }
+    }
+    
+    // For onboarding waves: one reservation for the whole range instead of one per block
+    public String[] allocate(int count) {
+        String[] numbers = new String[count];
+        if (count < blockSize) {
+            for (int i = 0; i < count; i++) {
+                numbers[i] = next();
+            }
+            return numbers;
+        }
+        long first = idBlocks.reserve(SEGMENT, count);
+        for (int i = 0; i < count; i++) {
+            numbers[i] = format(first + i);
+        }
+        return numbers;
+    }
+    
+    /**
+     * True for numbers this allocator could have issued (check digit included) and
+     * for the older random format. Lets lookups reject typos without a query.
+     */
+    public static boolean isWellFormed(String accountNumber) {
+        // Lookups are case-insensitive in MySQL, so only the shape is checked here
+        if (accountNumber == null || !accountNumber.regionMatches(true, 0, PREFIX, 0, PREFIX.length())) {
+            return false;
+        }
+        int length = accountNumber.length() - PREFIX.length();
+        if (length == 8) {
+            for (int i = PREFIX.length(); i < accountNumber.length(); i++) {
+                if (Character.digit(accountNumber.charAt(i), 16) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (length != DIGITS + 1) {
+            return false;
+        }
+        for (int i = PREFIX.length(); i < accountNumber.length(); i++) {
+            if (accountNumber.charAt(i) < '0' || accountNumber.charAt(i) > '9') {
+                return false;
+            }
+        }
+        String payload = accountNumber.substring(PREFIX.length(), accountNumber.length() - 1);
+        return checkDigit(payload) == accountNumber.charAt(accountNumber.length() - 1) - '0';
+    }
+    
+    private void prefetch() {
+        refillLock.lock();
+        try {
+            if (prefetched == null) {
+                prefetched = prefetcher.submit(() -> idBlocks.reserve(SEGMENT, blockSize));
+            }
+        } finally {
+            refillLock.unlock();
+        }
+    }
+    
+    private void refill(Block exhausted) {
+        refillLock.lock();
+        try {
+            if (block == exhausted) {
+                Long first = null;
+                if (prefetched != null) {
+                    try {
+                        first = prefetched.get();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (ExecutionException e) {
+                        // Reserve on this thread instead
+                    }
+                    prefetched = null;
+                }
+                if (first == null) {
+                    first = idBlocks.reserve(SEGMENT, blockSize);
+                }
+                block = new Block(first, first + blockSize);
+            }
+        } finally {
+            refillLock.unlock();
+        }
+    }
+    
+    private static String format(long sequence) {
+        String digits = Long.toString(sequence);
+        if (digits.length() > DIGITS) {
+            throw new IllegalStateException("Account number sequence exhausted");
+        }
+        StringBuilder number = new StringBuilder(PREFIX.length() + DIGITS + 1).append(PREFIX);
+        for (int i = digits.length(); i < DIGITS; i++) {
+            number.append('0');
+        }
+        number.append(digits);
+        return number.append(checkDigit(number.substring(PREFIX.length()))).toString();
+    }
+    
+    // Luhn: doubling starts with the digit next to the check digit
+    private static int checkDigit(String payload) {
+        int sum = 0;
+        boolean doubled = true;
+        for (int i = payload.length() - 1; i >= 0; i--) {
+            int digit = payload.charAt(i) - '0';
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return (10 - sum % 10) % 10;
+    }
+    
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+        private final long prefetchAt;
+        
+        private Block(long first, long end) {
+            this.next = new AtomicLong(first);
+            this.end = end;
+            this.prefetchAt = first + (end - first) / 2;
+        }
+    }
+}
@@ -1,40 +1,65 @@
 package com.banking.system.service;
 
+import com.banking.system.config.BankUserDetails;
+import com.banking.system.dto.AccountSummary;
+import com.banking.system.dto.AccountView;
+import com.banking.system.dto.KeysetPage;
 import com.banking.system.entity.Account;
 import com.banking.system.entity.User;
 import com.banking.system.repository.AccountRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.util.List;
-import java.util.UUID;
+import java.util.Objects;
+import java.util.Optional;
 
 @Service
 @Transactional
+@Timed(value = "bank.service", histogram = true, percentiles = {0.5, 0.99, 0.999})
 public class AccountService {
     
     @Autowired
     private AccountRepository accountRepository;
     
+    @PersistenceContext
+    private EntityManager entityManager;
+    
     @Autowired
     private UserService userService;
     
     @Autowired
     private LogService logService;
     
+    @Autowired
+    private DashboardStatsService dashboardStats;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private AccountNumberAllocator accountNumberAllocator;
+    
+    @Autowired
+    private CacheInvalidator cacheInvalidator;
+    
+    @Autowired
+    private OptimisticRetry optimisticRetry;
+    
     public Account createAccount(Long userId) {
         User user = userService.getUserById(userId);
         
-        String accountNumber;
-        do {
-            accountNumber = "ACC" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-        } while (accountRepository.existsByAccountNumber(accountNumber));
-        
-        Account account = new Account(accountNumber, user);
-        return accountRepository.save(account);
+        Account account = accountRepository.save(new Account(accountNumberAllocator.next(), user));
+        dashboardStats.accountCreated();
+        return account;
     }
     
     public Account getAccountById(Long id) {
@@ -43,49 +68,105 @@ public class AccountService {
     }
     
     public Account getAccountByNumber(String accountNumber) {
+        if (!AccountNumberAllocator.isWellFormed(accountNumber)) {
+            throw new RuntimeException("Account not found");
+        }
         return accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new RuntimeException("Account not found"));
     }
     
+    public boolean isOwnedBy(Long accountId, Long userId) {
+        return accountRepository.existsByIdAndUserId(accountId, userId);
+    }
+    
+    // Accounts come from the entity cache where possible; the misses are loaded in one query.
+    // multiLoad skips the cache without an explicit mode; the session's keeps replica reads out of it
+    @Transactional(readOnly = true)
     public List<Account> getAccountsByUserId(Long userId) {
-        return accountRepository.findByUserId(userId);
+        List<Long> ids = accountRepository.findIdsByUserId(userId);
+        Session session = entityManager.unwrap(Session.class);
+        return session.byMultipleIds(Account.class).with(session.getCacheMode()).multiLoad(ids).stream()
+                .filter(Objects::nonNull)
+                .toList();
     }
     
+    @Transactional(readOnly = true)
+    public List<AccountView> getAccountViews(Long userId) {
+        return accountRepository.findViewsByUserId(userId);
+    }
+    
+    // Empty unless the account belongs to the user
+    @Transactional(readOnly = true)
+    public Optional<AccountView> getAccountView(Long accountId, Long userId) {
+        return accountRepository.findViewByIdAndUserId(accountId, userId);
+    }
+    
+    @Transactional(readOnly = true)
+    public Optional<Long> getAccountVersion(Long accountId, Long userId) {
+        return accountRepository.findVersionByIdAndUserId(accountId, userId);
+    }
+    
+    @Transactional(readOnly = true)
     public List<Account> getAllAccounts() {
         return accountRepository.findAll();
     }
     
-    public Account deposit(Long accountId, BigDecimal amount) {
-        Account account = getAccountById(accountId);
-        account.setBalance(account.getBalance().add(amount));
-        return accountRepository.save(account);
+    @Transactional(readOnly = true)
+    public KeysetPage<AccountSummary> getAccountSummaries(Long afterId, int size) {
+        List<AccountSummary> rows = accountRepository.findSummariesAfter(afterId == null ? 0L : afterId,
+                PageRequest.of(0, size + 1));
+        return KeysetPage.of(rows, size, AccountSummary::getId);
     }
     
-    public Account withdraw(Long accountId, BigDecimal amount) {
-        Account account = getAccountById(accountId);
-        
-        if (account.getBalance().compareTo(amount) < 0) {
+    // Proxy for associating rows with an account without loading it
+    public Account getAccountReference(Long id) {
+        return accountRepository.getReferenceById(id);
+    }
+    
+    // Both return the new balance, read while this transaction still holds the row lock
+    public BigDecimal deposit(Long accountId, BigDecimal amount) {
+        cacheInvalidator.accountChanging(accountId);
+        if (accountRepository.addToBalance(accountId, amount) == 0) {
+            throw new RuntimeException("Account not found");
+        }
+        dashboardStats.balanceChanged(amount);
+        return accountRepository.findBalanceById(accountId);
+    }
+    
+    public BigDecimal withdraw(Long accountId, BigDecimal amount) {
+        cacheInvalidator.accountChanging(accountId);
+        if (accountRepository.subtractFromBalance(accountId, amount) == 0) {
+            // Only the failure path pays for telling the two causes apart
+            if (!accountRepository.existsById(accountId)) {
+                throw new RuntimeException("Account not found");
+            }
+            meterRegistry.counter("bank.transactions.rejected",
+                    "reason", "insufficient_balance", "path", "service").increment();
             throw new RuntimeException("Insufficient balance");
         }
-        
-        account.setBalance(account.getBalance().subtract(amount));
-        return accountRepository.save(account);
+        dashboardStats.balanceChanged(amount.negate());
+        return accountRepository.findBalanceById(accountId);
     }
     
+    // A deposit landing between the balance check and the delete fails the delete's version
+    // check; the retry then sees the money and refuses
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void deleteAccount(Long id) {
-        Account account = getAccountById(id);
-        
-        // Check if account has balance
-        if (account.getBalance().compareTo(BigDecimal.ZERO) > 0) {
-            throw new RuntimeException("Cannot delete account with balance > 0. Withdraw funds first.");
-        }
-        
-        accountRepository.deleteById(id);
+        String accountNumber = optimisticRetry.run(id, () -> {
+            Account account = getAccountById(id);
+            
+            // Check if account has balance
+            if (account.getBalance().compareTo(BigDecimal.ZERO) > 0) {
+                throw new RuntimeException("Cannot delete account with balance > 0. Withdraw funds first.");
+            }
+            
+            accountRepository.delete(account);
+            return account.getAccountNumber();
+        });
+        dashboardStats.accountDeleted();
         
         // Log the action
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String username = auth.getName();
-        User user = userService.getUserByUsername(username);
-        logService.createLog(username + " deleted account: " + account.getAccountNumber(), user);
+        BankUserDetails user = BankUserDetails.current();
+        logService.createLog(user.getUsername() + " deleted account: " + accountNumber, user.getId());
     }
 }
@@ -0,0 +1,545 @@
+package com.banking.system.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes audit log entries in the background.
+ *
+ * An entry is in the local journal, forced to disk, before submit returns, so a
+ * crash never loses an entry that was accepted. Submitting threads only enqueue
+ * their entry; a journal writer thread appends everything waiting in one write and
+ * forces it once (group commit), then wakes them and hands the entries to the
+ * flusher. The flusher inserts rows as one JDBC batch and after each batch records
+ * in a checkpoint file how far into the journal it has got. The journal is split
+ * into segments; those behind the checkpoint are deleted, and on restart only the
+ * part after it is replayed.
+ *
+ * When the queue is full the caller waits up to the offer timeout, after which the
+ * entry is spilled to a second file that the flusher replays once it has caught
+ * up. Delivery is at-least-once: the checkpoint is not forced, so entries flushed
+ * just before a crash may be inserted again. If an entry cannot be journaled,
+ * submit throws and the entry is counted as lost; nothing retries it.
+ */
+@Service
+public class AuditLogWriter {
+
+    private static final String INSERT_SQL = "INSERT INTO logs (action, timestamp, user_id) VALUES (?, ?, ?)";
+    private static final long REPLAY_RETRY_MILLIS = 5000;
+    private static final String SEGMENT_PREFIX = "audit-journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int MAX_GROUP = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.audit.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.audit.batch-size:20}")
+    private int batchSize;
+
+    @Value("${app.audit.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${app.audit.offer-timeout-ms:50}")
+    private long offerTimeoutMs;
+
+    @Value("${app.audit.spool-dir:audit-spool}")
+    private String spoolDir;
+
+    @Value("${app.audit.journal-segment-bytes:4194304}")
+    private long segmentBytes;
+
+    private BlockingQueue<AuditEntry> queue;
+    private final Queue<AuditEntry> pending = new ConcurrentLinkedQueue<>();
+    // Locks rather than monitors: request threads may be virtual, and file writes under a monitor pin the carrier
+    private final ReentrantLock spillLock = new ReentrantLock();
+    private final ReentrantLock capacityLock = new ReentrantLock();
+    private final Condition capacityAvailable = capacityLock.newCondition();
+    private Path dir;
+    // Written by the journal writer only
+    private FileChannel journal;
+    private long segment;
+    private FileChannel checkpoint;
+    private FileChannel spill;
+    private Path spillPath;
+    private Path replayPath;
+    private Thread journalWriter;
+    private Thread flusher;
+    private volatile boolean running;
+    private volatile boolean journaling;
+    private long nextReplayAttempt;
+    // Oldest journal segment that may still exist; flusher only
+    private long oldestSegment;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong lost = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong flushNanosTotal = new AtomicLong();
+    private final AtomicLong journalForces = new AtomicLong();
+    private volatile long lastFlushNanos;
+
+    @PostConstruct
+    public void start() throws IOException {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        dir = Paths.get(spoolDir);
+        Files.createDirectories(dir);
+        spillPath = dir.resolve("audit-spill.log");
+        replayPath = dir.resolve("audit-replay.log");
+
+        spill = FileChannel.open(spillPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        checkpoint = FileChannel.open(dir.resolve("audit-checkpoint"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        // Anything left over from the previous run is handed to the spill replay
+        recoverInto(replayPath, 0);
+        recoverInto(dir.resolve("audit-journal.log"), 0);
+        segment = recoverJournal() + 1;
+        spill.force(false);
+        writeCheckpoint(segment, 0);
+        oldestSegment = segment;
+
+        journal = openSegment(segment);
+        journaling = true;
+        journalWriter = new Thread(this::journalLoop, "audit-journal-writer");
+        journalWriter.setDaemon(true);
+        journalWriter.start();
+    }
+
+    // Replayed entries reference users, so wait until startup (schema, seed data) has finished
+    @EventListener(ApplicationReadyEvent.class)
+    public void startFlusher() {
+        running = true;
+        flusher = new Thread(this::flushLoop, "audit-log-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        journaling = false;
+        LockSupport.unpark(journalWriter);
+        journalWriter.join(10_000);
+        running = false;
+        if (flusher != null) {
+            flusher.join(10_000);
+        }
+
+        // Whatever is still queued remains in the journal and is replayed on next start
+        journal.close();
+        checkpoint.close();
+        spillLock.lock();
+        try {
+            spill.close();
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    public void submit(Long userId, String action, LocalDateTime timestamp) {
+        AuditEntry entry = new AuditEntry(userId, action, timestamp);
+        entry.waiter = Thread.currentThread();
+
+        if (queue.remainingCapacity() == 0) {
+            awaitCapacity();
+        }
+
+        pending.add(entry);
+        LockSupport.unpark(journalWriter);
+        boolean interrupted = false;
+        while (!entry.journaled) {
+            if (!journalWriter.isAlive()) {
+                lost.incrementAndGet();
+                throw new IllegalStateException("Audit journal writer has stopped");
+            }
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
+            interrupted |= Thread.interrupted();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (entry.failure != null) {
+            lost.incrementAndGet();
+            throw new UncheckedIOException("Could not write audit spool", entry.failure);
+        }
+    }
+
+    public int getQueueDepth() { return queue.size(); }
+    public int getQueueCapacity() { return queueCapacity; }
+    public long getWrittenCount() { return written.get(); }
+    public long getSpilledCount() { return spilled.get(); }
+    public long getDroppedCount() { return dropped.get(); }
+    public long getLostCount() { return lost.get(); }
+    public long getFlushCount() { return flushes.get(); }
+    public long getJournalForceCount() { return journalForces.get(); }
+
+    public double getLastFlushMillis() {
+        return lastFlushNanos / 1_000_000.0;
+    }
+
+    public double getAverageFlushMillis() {
+        long count = flushes.get();
+        return count == 0 ? 0 : flushNanosTotal.get() / 1_000_000.0 / count;
+    }
+
+    private void awaitCapacity() {
+        capacityLock.lock();
+        try {
+            capacityAvailable.await(offerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            capacityLock.unlock();
+        }
+    }
+
+    // Group commit: whatever arrived while the previous force ran goes out in the next write and force
+    private void journalLoop() {
+        List<AuditEntry> group = new ArrayList<>();
+        while (journaling || !pending.isEmpty()) {
+            AuditEntry next;
+            while (group.size() < MAX_GROUP && (next = pending.poll()) != null) {
+                group.add(next);
+            }
+            if (group.isEmpty()) {
+                LockSupport.park(this);
+                continue;
+            }
+            IOException failure = null;
+            try {
+                writeGroup(group);
+            } catch (IOException e) {
+                failure = e;
+            }
+            List<AuditEntry> overflow = new ArrayList<>();
+            for (AuditEntry entry : group) {
+                if (failure == null && !queue.offer(entry)) {
+                    overflow.add(entry);
+                }
+            }
+            if (!overflow.isEmpty()) {
+                try {
+                    appendToSpill(overflow);
+                    spilled.addAndGet(overflow.size());
+                } catch (IOException e) {
+                    // The checkpoint will move past them, so the journal does not cover them either
+                    for (AuditEntry entry : overflow) {
+                        entry.failure = e;
+                    }
+                }
+            }
+            for (AuditEntry entry : group) {
+                if (failure != null) {
+                    entry.failure = failure;
+                }
+                entry.journaled = true;
+                LockSupport.unpark(entry.waiter);
+            }
+            group.clear();
+        }
+    }
+
+    private void writeGroup(List<AuditEntry> group) throws IOException {
+        long offset = journal.size();
+        List<byte[]> lines = new ArrayList<>(group.size());
+        int length = 0;
+        for (AuditEntry entry : group) {
+            byte[] line = entry.encode().getBytes(StandardCharsets.UTF_8);
+            lines.add(line);
+            length += line.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        for (int i = 0; i < group.size(); i++) {
+            buffer.put(lines.get(i));
+            offset += lines.get(i).length;
+            group.get(i).segment = segment;
+            group.get(i).end = offset;
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            journal.write(buffer);
+        }
+        journal.force(false);
+        journalForces.incrementAndGet();
+
+        if (offset >= segmentBytes) {
+            journal.close();
+            segment++;
+            journal = openSegment(segment);
+        }
+    }
+
+    private void flushLoop() {
+        List<AuditEntry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                AuditEntry first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    flush(batch);
+                    AuditEntry last = batch.get(batch.size() - 1);
+                    batch.clear();
+                    advanceCheckpoint(last.segment, last.end);
+
+                    capacityLock.lock();
+                    try {
+                        capacityAvailable.signalAll();
+                    } finally {
+                        capacityLock.unlock();
+                    }
+                }
+
+                if (queue.isEmpty() && System.currentTimeMillis() >= nextReplayAttempt) {
+                    replaySpill();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                // Entries stay in the journal/spill files; retry on the next pass
+                nextReplayAttempt = System.currentTimeMillis() + REPLAY_RETRY_MILLIS;
+            }
+        }
+    }
+
+    // The queue is in journal order, so every entry up to the batch's last one is in the database or the spill file
+    private void flush(List<AuditEntry> batch) throws IOException {
+        long start = System.nanoTime();
+        try {
+            insert(batch);
+        } catch (RuntimeException e) {
+            appendToSpill(batch);
+            spilled.addAndGet(batch.size());
+            nextReplayAttempt = System.currentTimeMillis() + REPLAY_RETRY_MILLIS;
+        }
+        lastFlushNanos = System.nanoTime() - start;
+        flushNanosTotal.addAndGet(lastFlushNanos);
+        flushes.incrementAndGet();
+    }
+
+    private void advanceCheckpoint(long flushedSegment, long flushedEnd) throws IOException {
+        writeCheckpoint(flushedSegment, flushedEnd);
+        for (; oldestSegment < flushedSegment; oldestSegment++) {
+            Files.deleteIfExists(segmentPath(oldestSegment));
+        }
+    }
+
+    private void writeCheckpoint(long checkpointSegment, long offset) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(2 * Long.BYTES).putLong(checkpointSegment).putLong(offset).flip();
+        while (buffer.hasRemaining()) {
+            checkpoint.write(buffer, buffer.position());
+        }
+    }
+
+    private void replaySpill() throws IOException {
+        spillLock.lock();
+        try {
+            if (spill.size() == 0 && !Files.exists(replayPath)) {
+                return;
+            }
+            // New spills go to a fresh file while the old one is replayed
+            if (!Files.exists(replayPath)) {
+                spill.close();
+                Files.move(spillPath, replayPath, StandardCopyOption.ATOMIC_MOVE);
+                spill = FileChannel.open(spillPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+        } finally {
+            spillLock.unlock();
+        }
+        List<AuditEntry> batch = new ArrayList<>(batchSize);
+        for (String line : Files.readAllLines(replayPath, StandardCharsets.UTF_8)) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            batch.add(AuditEntry.decode(line));
+            if (batch.size() == batchSize) {
+                insertOrDrop(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            insertOrDrop(batch);
+        }
+        Files.delete(replayPath);
+    }
+
+    // Falls back to row-by-row so one bad entry (e.g. its user was deleted) does not block the rest
+    private void insertOrDrop(List<AuditEntry> batch) {
+        try {
+            insert(batch);
+        } catch (DataAccessException e) {
+            for (AuditEntry entry : batch) {
+                try {
+                    insert(List.of(entry));
+                } catch (DataIntegrityViolationException rejected) {
+                    dropped.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private void insert(List<AuditEntry> batch) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch, batchSize, (ps, entry) -> {
+            ps.setString(1, entry.action);
+            ps.setTimestamp(2, Timestamp.valueOf(entry.timestamp));
+            ps.setLong(3, entry.userId);
+        });
+        written.addAndGet(batch.size());
+    }
+
+    // Returns the newest segment found, or the checkpoint's segment when there is none
+    private long recoverJournal() throws IOException {
+        ByteBuffer saved = ByteBuffer.allocate(2 * Long.BYTES);
+        while (saved.hasRemaining() && checkpoint.read(saved, saved.position()) > 0) {
+            // Read until full or end of file
+        }
+        long checkpointSegment = saved.hasRemaining() ? 0 : saved.getLong(0);
+        long checkpointOffset = saved.hasRemaining() ? 0 : saved.getLong(Long.BYTES);
+
+        List<Long> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                segments.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        Collections.sort(segments);
+        long newest = checkpointSegment;
+        for (long found : segments) {
+            if (found < checkpointSegment) {
+                Files.delete(segmentPath(found));
+            } else {
+                recoverInto(segmentPath(found), found == checkpointSegment ? checkpointOffset : 0);
+            }
+            newest = Math.max(newest, found);
+        }
+        return newest;
+    }
+
+    // Copies complete lines from the given offset on; a line torn by a crash was never acknowledged
+    private void recoverInto(Path leftover, long from) throws IOException {
+        if (!Files.exists(leftover)) {
+            return;
+        }
+        byte[] bytes = Files.readAllBytes(leftover);
+        int end = bytes.length;
+        while (end > from && bytes[end - 1] != '\n') {
+            end--;
+        }
+        if (end > from) {
+            ByteBuffer contents = ByteBuffer.wrap(bytes, (int) from, end - (int) from);
+            while (contents.hasRemaining()) {
+                spill.write(contents);
+            }
+        }
+        Files.delete(leftover);
+    }
+
+    private FileChannel openSegment(long id) throws IOException {
+        return FileChannel.open(segmentPath(id), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private Path segmentPath(long id) {
+        return dir.resolve(SEGMENT_PREFIX + id + SEGMENT_SUFFIX);
+    }
+
+    private void appendToSpill(List<AuditEntry> entries) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (AuditEntry entry : entries) {
+            lines.append(entry.encode());
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        spillLock.lock();
+        try {
+            while (buffer.hasRemaining()) {
+                spill.write(buffer);
+            }
+            spill.force(false);
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    private static final class AuditEntry {
+        private final Long userId;
+        private final String action;
+        private final LocalDateTime timestamp;
+        // Set by the journal writer: where the entry's line ends, and whether it is on disk
+        private long segment;
+        private long end;
+        private volatile boolean journaled;
+        private IOException failure;
+        private Thread waiter;
+
+        private AuditEntry(Long userId, String action, LocalDateTime timestamp) {
+            this.userId = userId;
+            this.action = action;
+            this.timestamp = timestamp;
+        }
+
+        private String encode() {
+            return userId + "\t" + timestamp + "\t" + escape(action) + "\n";
+        }
+
+        private static AuditEntry decode(String line) {
+            String[] parts = line.split("\t", 3);
+            return new AuditEntry(Long.valueOf(parts[0]), unescape(parts[2]), LocalDateTime.parse(parts[1]));
+        }
+
+        private static String escape(String value) {
+            return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+        }
+
+        private static String unescape(String value) {
+            StringBuilder out = new StringBuilder(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '\\' && i + 1 < value.length()) {
+                    char next = value.charAt(++i);
+                    out.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+                } else {
+                    out.append(c);
+                }
+            }
+            return out.toString();
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.banking.system.service;
+
+import com.banking.system.entity.BalanceSnapshot;
+import com.banking.system.entity.Transaction;
+import com.banking.system.repository.BalanceSnapshotRepository;
+import com.banking.system.repository.TransactionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Point-in-time balances.
+ *
+ * Every transaction row records the balance of its account right after it was
+ * applied (balance_after), so the balance at any time is the value on the last
+ * row at or before it. Per-account end-of-day snapshots are written for each day
+ * with activity, by a nightly job and by the backfill.
+ *
+ * Rows posted before balance_after existed are filled in by a background job that
+ * walks each account from its newest such row back to its oldest, starting from
+ * the current balance, a chunk per short transaction. Only the account row is
+ * locked, and only while the starting point is read.
+ */
+@Service
+public class BalanceHistoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BalanceHistoryService.class);
+
+    private static final Set<Transaction.TransactionType> CREDIT_TYPES = EnumSet.noneOf(Transaction.TransactionType.class);
+    static {
+        for (Transaction.TransactionType type : Transaction.TransactionType.values()) {
+            if (type.isCredit()) {
+                CREDIT_TYPES.add(type);
+            }
+        }
+    }
+
+    private static final String ROW_COLUMNS = "SELECT id, timestamp, amount, type, balance_after FROM transactions ";
+    private static final String UPDATE_BALANCE_AFTER_SQL = "UPDATE transactions SET balance_after = ? WHERE id = ?";
+    private static final String INSERT_SNAPSHOT_SQL =
+            "INSERT INTO balance_snapshots (account_id, snapshot_date, balance, transaction_id) " +
+            "SELECT ?, ?, ?, ? FROM DUAL " +
+            "WHERE NOT EXISTS (SELECT 1 FROM balance_snapshots WHERE account_id = ? AND snapshot_date = ?)";
+    // Last row of the day per account, if it already has its balance
+    private static final String DAY_CLOSE_SQL =
+            "SELECT t.account_id, t.balance_after, t.id FROM transactions t " +
+            "WHERE t.timestamp >= ? AND t.timestamp < ? AND t.balance_after IS NOT NULL " +
+            "AND NOT EXISTS (SELECT 1 FROM transactions n WHERE n.account_id = t.account_id " +
+            "    AND n.timestamp < ? AND (n.timestamp > t.timestamp OR (n.timestamp = t.timestamp AND n.id > t.id)))";
+    private static final int ACCOUNT_PAGE_SIZE = 500;
+
+    private static final RowMapper<Row> ROW_MAPPER = (rs, rowNum) -> new Row(rs.getLong(1),
+            rs.getTimestamp(2).toLocalDateTime(), rs.getBigDecimal(3),
+            Transaction.TransactionType.valueOf(rs.getString(4)).isCredit(), rs.getBigDecimal(5));
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private BalanceSnapshotRepository snapshotRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.balance-history.backfill-enabled:true}")
+    private boolean backfillEnabled;
+
+    @Value("${app.balance-history.backfill-chunk-size:1000}")
+    private int chunkSize;
+
+    // Completed days the nightly job (re)checks, so a missed run is caught up
+    @Value("${app.balance-history.snapshot-days:3}")
+    private int snapshotDays;
+
+    private TransactionTemplate transactionTemplate;
+    private Thread worker;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        worker = new Thread(() -> {
+            if (backfillEnabled) {
+                backfill();
+            }
+            takeDailySnapshots();
+        }, "balance-backfill");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.join(10_000);
+        }
+    }
+
+    /**
+     * Balance of the account just after the last transaction at or before the given
+     * time; zero if it had none yet. Accounts open with a zero balance.
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal getBalanceAt(Long accountId, LocalDateTime at) {
+        return balanceAfter(accountId, at.toLocalDate(),
+                transactionRepository.findFirstByAccountIdAndTimestampLessThanEqualOrderByTimestampDescIdDesc(accountId, at));
+    }
+
+    // Balance before anything posted at or after the given time, e.g. the opening balance of a period
+    @Transactional(readOnly = true)
+    public BigDecimal getBalanceBefore(Long accountId, LocalDateTime time) {
+        return balanceAfter(accountId, time.toLocalDate(),
+                transactionRepository.findFirstByAccountIdAndTimestampLessThanOrderByTimestampDescIdDesc(accountId, time));
+    }
+
+    private BigDecimal balanceAfter(Long accountId, LocalDate day, Optional<Transaction> latest) {
+        if (latest.isEmpty()) {
+            return BigDecimal.ZERO;
+        }
+        Transaction row = latest.get();
+        if (row.getBalanceAfter() != null) {
+            return row.getBalanceAfter();
+        }
+
+        // Not backfilled yet: start from the last snapshot before that day and replay up to the row
+        Optional<BalanceSnapshot> snapshot = snapshotRepository
+                .findFirstByAccountIdAndSnapshotDateLessThanOrderBySnapshotDateDesc(accountId, day);
+        LocalDateTime from = snapshot.map(s -> s.getSnapshotDate().plusDays(1).atStartOfDay()).orElse(null);
+        BigDecimal opening = snapshot.map(BalanceSnapshot::getBalance).orElse(BigDecimal.ZERO);
+        return opening.add(transactionRepository.sumSignedAmounts(accountId, CREDIT_TYPES, from,
+                row.getTimestamp(), row.getId()));
+    }
+
+    @Scheduled(cron = "${app.balance-history.snapshot-cron:0 5 0 * * *}")
+    public void takeDailySnapshots() {
+        LocalDate today = LocalDate.now();
+        for (int i = snapshotDays; i >= 1; i--) {
+            try {
+                snapshotDay(today.minusDays(i));
+            } catch (RuntimeException e) {
+                logger.warn("Balance snapshots for {} failed; retried on the next run", today.minusDays(i), e);
+            }
+        }
+    }
+
+    private void snapshotDay(LocalDate day) {
+        Timestamp start = Timestamp.valueOf(day.atStartOfDay());
+        Timestamp end = Timestamp.valueOf(day.plusDays(1).atStartOfDay());
+        List<Object[]> snapshots = new ArrayList<>();
+        jdbcTemplate.query(DAY_CLOSE_SQL, rs -> {
+            snapshots.add(snapshotArgs(rs.getLong(1), day, rs.getBigDecimal(2), rs.getLong(3)));
+            if (snapshots.size() == chunkSize) {
+                insertSnapshots(snapshots);
+                snapshots.clear();
+            }
+        }, start, end, end);
+        insertSnapshots(snapshots);
+    }
+
+    private void insertSnapshots(List<Object[]> snapshots) {
+        if (!snapshots.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SNAPSHOT_SQL, snapshots));
+        }
+    }
+
+    private static Object[] snapshotArgs(long accountId, LocalDate day, BigDecimal balance, long transactionId) {
+        return new Object[] {accountId, day, balance, transactionId, accountId, day};
+    }
+
+    // Fills in balance_after for rows posted before it existed; returns the number of rows filled
+    public long backfill() {
+        long start = System.currentTimeMillis();
+        long rows = 0;
+        long accounts = 0;
+        long afterId = 0;
+        while (running) {
+            List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM accounts WHERE id > ? ORDER BY id LIMIT ?",
+                    Long.class, afterId, ACCOUNT_PAGE_SIZE);
+            if (ids.isEmpty()) {
+                break;
+            }
+            for (Long id : ids) {
+                if (!running) {
+                    return rows;
+                }
+                try {
+                    long filled = backfillAccount(id);
+                    if (filled > 0) {
+                        rows += filled;
+                        accounts++;
+                    }
+                } catch (RuntimeException e) {
+                    // Left for the next start
+                    logger.warn("Balance backfill of account {} failed", id, e);
+                }
+            }
+            afterId = ids.get(ids.size() - 1);
+        }
+        if (rows > 0) {
+            logger.info("Backfilled balances of {} transactions in {} accounts in {} ms",
+                    rows, accounts, System.currentTimeMillis() - start);
+        }
+        return rows;
+    }
+
+    private long backfillAccount(Long accountId) {
+        Walk walk = transactionTemplate.execute(status -> startWalk(accountId));
+        if (walk == null) {
+            return 0;
+        }
+
+        LocalDate today = LocalDate.now();
+        BigDecimal balance = walk.balance;
+        LocalDateTime beforeTimestamp = walk.newest.timestamp;
+        long beforeId = walk.newest.id + 1;
+        LocalDate day = null;
+        long filled = 0;
+        while (running) {
+            List<Row> rows = jdbcTemplate.query(ROW_COLUMNS + "WHERE account_id = ? AND balance_after IS NULL " +
+                            "AND (timestamp < ? OR (timestamp = ? AND id < ?)) ORDER BY timestamp DESC, id DESC LIMIT ?",
+                    ROW_MAPPER, accountId, Timestamp.valueOf(beforeTimestamp), Timestamp.valueOf(beforeTimestamp),
+                    beforeId, chunkSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+
+            List<Object[]> updates = new ArrayList<>(rows.size());
+            List<Object[]> snapshots = new ArrayList<>();
+            for (Row row : rows) {
+                LocalDate rowDay = row.timestamp.toLocalDate();
+                // Walking backwards, the first row seen of a day is its last one
+                boolean lastOfDay = day == null ? walk.dayComplete : !rowDay.equals(day);
+                if (lastOfDay && rowDay.isBefore(today)) {
+                    snapshots.add(snapshotArgs(accountId, rowDay, balance, row.id));
+                }
+                day = rowDay;
+                updates.add(new Object[] {balance, row.id});
+                balance = row.credit ? balance.subtract(row.amount) : balance.add(row.amount);
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(UPDATE_BALANCE_AFTER_SQL, updates);
+                if (!snapshots.isEmpty()) {
+                    jdbcTemplate.batchUpdate(INSERT_SNAPSHOT_SQL, snapshots);
+                }
+            });
+            filled += rows.size();
+
+            Row oldest = rows.get(rows.size() - 1);
+            beforeTimestamp = oldest.timestamp;
+            beforeId = oldest.id;
+        }
+        return filled;
+    }
+
+    // Locks the account row so no posting can slip in while the starting balance is derived
+    private Walk startWalk(Long accountId) {
+        List<BigDecimal> current = jdbcTemplate.queryForList("SELECT balance FROM accounts WHERE id = ? FOR UPDATE",
+                BigDecimal.class, accountId);
+        if (current.isEmpty()) {
+            return null;
+        }
+        List<Row> newest = jdbcTemplate.query(ROW_COLUMNS + "WHERE account_id = ? AND balance_after IS NULL " +
+                "ORDER BY timestamp DESC, id DESC LIMIT 1", ROW_MAPPER, accountId);
+        if (newest.isEmpty()) {
+            return null;
+        }
+        Row row = newest.get(0);
+        List<Row> next = jdbcTemplate.query(ROW_COLUMNS + "WHERE account_id = ? " +
+                        "AND (timestamp > ? OR (timestamp = ? AND id > ?)) ORDER BY timestamp, id LIMIT 1",
+                ROW_MAPPER, accountId, Timestamp.valueOf(row.timestamp), Timestamp.valueOf(row.timestamp), row.id);
+        if (next.isEmpty()) {
+            return new Walk(row, current.get(0), true);
+        }
+        Row after = next.get(0);
+        if (after.balanceAfter == null) {
+            throw new IllegalStateException("Unexpected unfilled transaction " + after.id);
+        }
+        BigDecimal balance = after.credit ? after.balanceAfter.subtract(after.amount) : after.balanceAfter.add(after.amount);
+        return new Walk(row, balance, !after.timestamp.toLocalDate().equals(row.timestamp.toLocalDate()));
+    }
+
+    private static final class Row {
+        private final long id;
+        private final LocalDateTime timestamp;
+        private final BigDecimal amount;
+        private final boolean credit;
+        private final BigDecimal balanceAfter;
+
+        private Row(long id, LocalDateTime timestamp, BigDecimal amount, boolean credit, BigDecimal balanceAfter) {
+            this.id = id;
+            this.timestamp = timestamp;
+            this.amount = amount;
+            this.credit = credit;
+            this.balanceAfter = balanceAfter;
+        }
+    }
+
+    // Newest unfilled row of an account, the balance right after it, and whether it closes its day
+    private static final class Walk {
+        private final Row newest;
+        private final BigDecimal balance;
+        private final boolean dayComplete;
+
+        private Walk(Row newest, BigDecimal balance, boolean dayComplete) {
+            this.newest = newest;
+            this.balance = balance;
+            this.dayComplete = dayComplete;
+        }
+    }
+}
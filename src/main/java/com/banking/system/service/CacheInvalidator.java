@@ -0,0 +1,82 @@
+package com.banking.system.service;
+
+import com.banking.system.entity.Account;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.cache.spi.TimestampsCache;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keeps Hibernate's second-level cache in step with writes it does not see: balance
+ * UPDATEs in native SQL or JDBC, and rows inserted with JDBC. Call inside the writing
+ * transaction, before the write.
+ *
+ * A changing account's cache entry is replaced with a soft lock, as Hibernate does
+ * for entities it updates itself. Until the transaction completes every read of the
+ * account misses the cache; afterwards, loads that started before the commit cannot
+ * put the old balance back.
+ *
+ * The lock is released by replacing it with a released lock stamped after the commit,
+ * which is what Hibernate does when a lock has expired. Its ordinary release keeps the
+ * version of the entry the lock replaced and then admits any load with a higher one;
+ * the native UPDATEs bump the version, so a load from between two writes could put an
+ * intermediate balance back. The replacement carries no version and is judged by time.
+ */
+@Component
+public class CacheInvalidator {
+
+    // Matches no lock, so unlockItem replaces whatever is cached with a released lock
+    private static final SoftLock RELEASED = new SoftLock() {};
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public void accountChanging(Long accountId) {
+        accountsChanging(List.of(accountId));
+    }
+
+    public void accountsChanging(Collection<Long> accountIds) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        EntityPersister persister = session.getFactory().getMappingMetamodel().getEntityDescriptor(Account.class);
+        if (!persister.canWriteToCache() || accountIds.isEmpty()) {
+            return;
+        }
+        EntityDataAccess cache = persister.getCacheAccessStrategy();
+        List<Object> keys = new ArrayList<>(accountIds.size());
+        for (Long id : accountIds) {
+            Object key = cache.generateCacheKey(id, persister, session.getFactory(), session.getTenantIdentifier());
+            keys.add(key);
+            cache.lockItem(session, key, null);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                for (Object key : keys) {
+                    cache.unlockItem(session, key, RELEASED);
+                }
+            }
+        });
+    }
+
+    // Cached query results over these tables are ignored until the transaction completes, then dropped
+    public void tablesChanging(String... tables) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        TimestampsCache timestamps = session.getFactory().getCache().getTimestampsCache();
+        timestamps.preInvalidate(tables, session);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                timestamps.invalidate(tables, session);
+            }
+        });
+    }
+}
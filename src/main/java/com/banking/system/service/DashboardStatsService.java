@@ -0,0 +1,183 @@
+package com.banking.system.service;
+
+import com.banking.system.dto.DailyVolume;
+import com.banking.system.repository.AccountRepository;
+import com.banking.system.repository.TransactionRepository;
+import com.banking.system.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Running totals for the admin dashboard.
+ *
+ * The totals are loaded with aggregate queries once, then kept up to date by the
+ * services as their transactions commit. They are recomputed from the database
+ * every few minutes (on the next dashboard view) to correct drift from writes
+ * made by other instances or outside the application.
+ */
+@Service
+public class DashboardStatsService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Value("${app.dashboard.volume-days:7}")
+    private int volumeDays;
+
+    @Value("${app.dashboard.reconcile-minutes:10}")
+    private long reconcileMinutes;
+
+    private final AtomicLong totalUsers = new AtomicLong();
+    private final AtomicLong totalAccounts = new AtomicLong();
+    private final AtomicReference<BigDecimal> totalBalance = new AtomicReference<>(BigDecimal.ZERO);
+    private final Map<LocalDate, Volume> dailyVolume = new ConcurrentHashMap<>();
+    private final AtomicBoolean reconciling = new AtomicBoolean();
+    private volatile long lastReconciled;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcile() {
+        if (!reconciling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            totalUsers.set(userRepository.count());
+            totalAccounts.set(accountRepository.count());
+            totalBalance.set(accountRepository.sumBalances());
+
+            LocalDate firstDay = LocalDate.now().minusDays(volumeDays - 1);
+            dailyVolume.clear();
+            for (DailyVolume day : transactionRepository.findDailyVolumeSince(firstDay.atStartOfDay())) {
+                Volume volume = new Volume();
+                volume.count.set(day.getCount());
+                volume.amount.set(day.getAmount());
+                dailyVolume.put(day.getDay(), volume);
+            }
+            lastReconciled = System.currentTimeMillis();
+        } finally {
+            reconciling.set(false);
+        }
+    }
+
+    public long getTotalUsers() {
+        reconcileIfStale();
+        return totalUsers.get();
+    }
+
+    public long getTotalAccounts() {
+        reconcileIfStale();
+        return totalAccounts.get();
+    }
+
+    public BigDecimal getTotalBalance() {
+        reconcileIfStale();
+        return totalBalance.get();
+    }
+
+    // Most recent day first, including days without transactions
+    public List<DailyVolume> getDailyVolume() {
+        reconcileIfStale();
+        List<DailyVolume> days = new ArrayList<>(volumeDays);
+        LocalDate day = LocalDate.now();
+        for (int i = 0; i < volumeDays; i++, day = day.minusDays(1)) {
+            Volume volume = dailyVolume.get(day);
+            days.add(volume == null
+                    ? new DailyVolume(day, 0, BigDecimal.ZERO)
+                    : new DailyVolume(day, volume.count.get(), volume.amount.get()));
+        }
+        return days;
+    }
+
+    public void userCreated() {
+        afterCommit(totalUsers::incrementAndGet);
+    }
+
+    public void usersCreated(int users, int accounts) {
+        afterCommit(() -> {
+            totalUsers.addAndGet(users);
+            totalAccounts.addAndGet(accounts);
+        });
+    }
+
+    public void userDeleted(int accountCount) {
+        afterCommit(() -> {
+            totalUsers.decrementAndGet();
+            totalAccounts.addAndGet(-accountCount);
+        });
+    }
+
+    public void accountCreated() {
+        afterCommit(totalAccounts::incrementAndGet);
+    }
+
+    public void accountDeleted() {
+        afterCommit(totalAccounts::decrementAndGet);
+    }
+
+    public void balanceChanged(BigDecimal delta) {
+        afterCommit(() -> totalBalance.accumulateAndGet(delta, BigDecimal::add));
+    }
+
+    public void transactionPosted(LocalDateTime timestamp, BigDecimal amount) {
+        transactionsPosted(timestamp, 1, amount);
+    }
+
+    public void transactionsPosted(LocalDateTime timestamp, long count, BigDecimal amount) {
+        afterCommit(() -> {
+            LocalDate day = timestamp.toLocalDate();
+            if (day.isBefore(LocalDate.now().minusDays(volumeDays - 1))) {
+                return;
+            }
+            Volume volume = dailyVolume.computeIfAbsent(day, d -> new Volume());
+            volume.count.addAndGet(count);
+            volume.amount.accumulateAndGet(amount, BigDecimal::add);
+
+            // Drop days that have scrolled out of the window
+            dailyVolume.keySet().removeIf(d -> d.isBefore(LocalDate.now().minusDays(volumeDays - 1)));
+        });
+    }
+
+    private void reconcileIfStale() {
+        if (System.currentTimeMillis() - lastReconciled > reconcileMinutes * 60_000) {
+            reconcile();
+        }
+    }
+
+    private static void afterCommit(Runnable update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
+    private static final class Volume {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicReference<BigDecimal> amount = new AtomicReference<>(BigDecimal.ZERO);
+    }
+}
@@ -0,0 +1,68 @@
+package com.banking.system.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Reserves ranges from the id_blocks table for TransactionIdAllocator and
+ * AccountNumberAllocator, on a small connection pool of its own. Callers of the
+ * allocators can be holding row locks and a pooled connection while they wait for
+ * a reservation; on the shared pool the reservation would queue behind requests
+ * that are waiting for those locks, and everything would stall until the pool's
+ * connection-timeout.
+ */
+@Component
+public class IdBlocks {
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${app.id-blocks.pool-size:2}")
+    private int poolSize;
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        // Same settings as the main pool, apart from its size
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        dataSource.setPoolName("id-blocks");
+        dataSource.setMaximumPoolSize(poolSize);
+        dataSource.setMinimumIdle(1);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PreDestroy
+    public void close() {
+        dataSource.close();
+    }
+
+    // Returns the first value of the reserved range [first, first + size)
+    public long reserve(String name, int size) {
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.update("UPDATE id_blocks SET next_val = next_val + ? WHERE name = ?", size, name);
+            long after = jdbcTemplate.queryForObject("SELECT next_val FROM id_blocks WHERE name = ?", Long.class, name);
+            return after - size;
+        });
+    }
+}
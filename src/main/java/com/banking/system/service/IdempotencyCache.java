@@ -0,0 +1,116 @@
+package com.banking.system.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, time-limited record of recently submitted idempotency keys.
+ *
+ * The first request for a key runs its action; concurrent and later requests with
+ * the same key wait for that outcome and get its result instead of running the
+ * action again. A key whose action failed is forgotten so the client can retry it.
+ * The unique constraint on (account_id, idempotency_key) still catches duplicates
+ * that arrive after an entry has expired or been evicted.
+ */
+@Service
+public class IdempotencyCache {
+
+    @Value("${app.idempotency.max-size:100000}")
+    private int maxSize;
+
+    @Value("${app.idempotency.ttl-seconds:86400}")
+    private long ttlSeconds;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong suppressed = new AtomicLong();
+
+    /**
+     * Runs the action unless the key was already seen, and returns its result. A
+     * duplicate of a successful submission returns that submission's result; one of
+     * a submission that is still running waits for it and rethrows its failure.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Supplier<T> action) {
+        long now = System.currentTimeMillis();
+        Entry entry = new Entry(now + ttlSeconds * 1000);
+        Entry existing;
+        synchronized (entries) {
+            existing = entries.get(key);
+            if (existing == null || existing.expiresAt <= now) {
+                entries.put(key, entry);
+                existing = null;
+            }
+        }
+
+        if (existing != null) {
+            hits.incrementAndGet();
+            Object result;
+            try {
+                result = existing.outcome.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+            suppressed.incrementAndGet();
+            return (T) result;
+        }
+
+        misses.incrementAndGet();
+        try {
+            T result = action.get();
+            entry.outcome.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            synchronized (entries) {
+                entries.remove(key, entry);
+            }
+            entry.outcome.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // Duplicates detected by the database rather than the cache
+    public void recordSuppressed() {
+        suppressed.incrementAndGet();
+    }
+
+    public long getHitCount() { return hits.get(); }
+    public long getMissCount() { return misses.get(); }
+    public long getSuppressedCount() { return suppressed.get(); }
+
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static final class Entry {
+        private final long expiresAt;
+        private final CompletableFuture<Object> outcome = new CompletableFuture<>();
+
+        private Entry(long expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,417 @@
+package com.banking.system.service;
+
+import com.banking.system.entity.Transaction;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Optional single-writer ledger for high-traffic accounts.
+ *
+ * Accounts are hashed onto a fixed number of shards. Each shard thread owns the
+ * balances of its accounts in memory and applies commands one at a time, so no
+ * row locks are needed to decide whether a withdrawal fits. Applied commands are
+ * persisted in groups: everything that arrived while the previous group was being
+ * written goes into the next database transaction (transaction rows plus one
+ * balance update per account, adding the group's net change). A command's future
+ * completes once its group has committed. Each shard's queue is a lock-free
+ * linked queue; its capacity is a separate count of permits, taken by submit and
+ * returned as the shard takes commands off. When none are left, submit waits up
+ * to the offer timeout and then rejects the command.
+ *
+ * Balances of routed accounts should only be changed through this engine, by a
+ * single application instance, while it is enabled; see {@link #handles(Long)}.
+ * Nothing stops other writers, so the engine does not trust its held balances
+ * blindly: a withdrawal they cannot cover is checked against the stored balance
+ * before it is refused, and a group's balance update only applies if the row
+ * still holds the balance the shard started from. If anything else changed it,
+ * the group is posted command by command against the stored balances instead.
+ */
+@Service
+public class LedgerEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerEngine.class);
+
+    private static final String INSERT_TRANSACTION_SQL =
+            "INSERT INTO transactions (id, amount, type, timestamp, account_id, idempotency_key, balance_after) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String APPLY_DELTA_SQL =
+            "UPDATE accounts SET balance = balance + ?, version = version + 1 WHERE id = ? AND balance = ?";
+    private static final String ADD_BALANCE_SQL = "UPDATE accounts SET balance = balance + ?, version = version + 1 WHERE id = ?";
+    private static final String SUBTRACT_BALANCE_SQL =
+            "UPDATE accounts SET balance = balance - ?, version = version + 1 WHERE id = ? AND balance >= ?";
+    private static final String SELECT_BALANCE_SQL = "SELECT balance FROM accounts WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DashboardStatsService dashboardStats;
+
+    @Autowired
+    private TransactionIdAllocator idAllocator;
+
+    @Autowired
+    private CacheInvalidator cacheInvalidator;
+
+    @Value("${app.ledger.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.ledger.shards:4}")
+    private int shardCount;
+
+    @Value("${app.ledger.batch-size:256}")
+    private int batchSize;
+
+    @Value("${app.ledger.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.ledger.offer-timeout-ms:100}")
+    private long offerTimeoutMs;
+
+    // Empty means every account is routed to the engine
+    @Value("${app.ledger.accounts:}")
+    private String[] routedAccounts;
+
+    private final Set<Long> routedAccountIds = new HashSet<>();
+    private TransactionTemplate transactionTemplate;
+    private Shard[] shards;
+
+    private final AtomicLong commands = new AtomicLong();
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong busy = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        for (String id : routedAccounts) {
+            if (!id.isBlank()) {
+                routedAccountIds.add(Long.valueOf(id.trim()));
+            }
+        }
+
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i);
+            shards[i].thread.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (shards == null) {
+            return;
+        }
+        for (Shard shard : shards) {
+            shard.running = false;
+            LockSupport.unpark(shard.thread);
+        }
+        for (Shard shard : shards) {
+            shard.thread.join(10_000);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean handles(Long accountId) {
+        return enabled && (routedAccountIds.isEmpty() || routedAccountIds.contains(accountId));
+    }
+
+    /**
+     * Queues a command on the account's shard. The future yields the balance after
+     * the command once it has been committed.
+     */
+    public CompletableFuture<BigDecimal> submit(Long accountId, BigDecimal amount, Transaction.TransactionType type) {
+        return submit(accountId, amount, type, null);
+    }
+
+    public CompletableFuture<BigDecimal> submit(Long accountId, BigDecimal amount, Transaction.TransactionType type,
+                                                String idempotencyKey) {
+        if (!handles(accountId)) {
+            throw new IllegalStateException("Account " + accountId + " is not handled by the ledger engine");
+        }
+        if (type != Transaction.TransactionType.DEPOSIT && type != Transaction.TransactionType.WITHDRAW) {
+            throw new RuntimeException("Unsupported transaction type");
+        }
+        Command command = new Command(accountId, amount, type, idempotencyKey);
+        Shard shard = shards[Math.floorMod(Long.hashCode(accountId), shardCount)];
+        boolean queued;
+        try {
+            queued = shard.permits.tryAcquire(offerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if (!queued) {
+            busy.incrementAndGet();
+            throw new RuntimeException("The ledger is busy. Please try again.");
+        }
+        shard.queue.offer(command);
+        LockSupport.unpark(shard.thread);
+        return command.result;
+    }
+
+    // Blocking variant for request threads; rethrows the original failure
+    public BigDecimal apply(Long accountId, BigDecimal amount, Transaction.TransactionType type) {
+        return apply(accountId, amount, type, null);
+    }
+
+    public BigDecimal apply(Long accountId, BigDecimal amount, Transaction.TransactionType type, String idempotencyKey) {
+        try {
+            return submit(accountId, amount, type, idempotencyKey).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public long getCommandCount() { return commands.get(); }
+    public long getCommitCount() { return commits.get(); }
+    public long getRejectedCount() { return rejected.get(); }
+    public long getBusyCount() { return busy.get(); }
+
+    private final class Shard {
+        private final Queue<Command> queue = new ConcurrentLinkedQueue<>();
+        private final Semaphore permits = new Semaphore(queueCapacity);
+        private final Map<Long, BigDecimal> balances = new HashMap<>();
+        private final List<Command> pending = new ArrayList<>();
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        private Shard(int index) {
+            thread = new Thread(this::run, "ledger-shard-" + index);
+            thread.setDaemon(true);
+        }
+
+        private void run() {
+            while (running || !queue.isEmpty()) {
+                Command command = queue.poll();
+                if (command == null) {
+                    if (!pending.isEmpty()) {
+                        commit();
+                    } else {
+                        // submit and stop unpark; a permit left by an earlier unpark just means one extra pass
+                        LockSupport.park(this);
+                    }
+                    continue;
+                }
+                permits.release();
+
+                applyInMemory(command);
+                if (pending.size() >= batchSize) {
+                    commit();
+                }
+            }
+            if (!pending.isEmpty()) {
+                commit();
+            }
+        }
+
+        private void applyInMemory(Command command) {
+            commands.incrementAndGet();
+            BigDecimal balance = balances.get(command.accountId);
+            // A held balance can be behind a deposit made outside the engine; check the stored one before refusing
+            if (balance == null || (command.type == Transaction.TransactionType.WITHDRAW
+                    && balance.compareTo(command.amount) < 0)) {
+                try {
+                    balance = storedBalance(command.accountId);
+                } catch (EmptyResultDataAccessException e) {
+                    command.result.completeExceptionally(new RuntimeException("Account not found"));
+                    return;
+                } catch (RuntimeException e) {
+                    command.result.completeExceptionally(e);
+                    return;
+                }
+            }
+
+            if (command.type == Transaction.TransactionType.DEPOSIT) {
+                balance = balance.add(command.amount);
+            } else if (balance.compareTo(command.amount) < 0) {
+                rejected.incrementAndGet();
+                balances.put(command.accountId, balance);
+                command.result.completeExceptionally(new RuntimeException("Insufficient balance"));
+                return;
+            } else {
+                balance = balance.subtract(command.amount);
+            }
+
+            balances.put(command.accountId, balance);
+            command.balanceAfter = balance;
+            // Stamped in apply order so (timestamp, id) order replays to balance_after
+            command.timestamp = LocalDateTime.now();
+            pending.add(command);
+        }
+
+        // The committed balance plus this account's commands still waiting for the next group
+        private BigDecimal storedBalance(Long accountId) {
+            BigDecimal balance = jdbcTemplate.queryForObject(SELECT_BALANCE_SQL, BigDecimal.class, accountId);
+            for (Command command : pending) {
+                if (command.accountId.equals(accountId)) {
+                    balance = command.type == Transaction.TransactionType.DEPOSIT
+                            ? balance.add(command.amount) : balance.subtract(command.amount);
+                }
+            }
+            return balance;
+        }
+
+        private void commit() {
+            // Per account: {balance before the group, net change}
+            Map<Long, BigDecimal[]> changes = new LinkedHashMap<>();
+            for (Command command : pending) {
+                BigDecimal delta = command.type == Transaction.TransactionType.DEPOSIT ? command.amount : command.amount.negate();
+                BigDecimal[] change = changes.computeIfAbsent(command.accountId,
+                        id -> new BigDecimal[] {command.balanceAfter.subtract(delta), BigDecimal.ZERO});
+                change[1] = change[1].add(delta);
+            }
+
+            try {
+                long[] ids = idAllocator.allocate(pending.size());
+                for (int i = 0; i < ids.length; i++) {
+                    pending.get(i).id = ids[i];
+                }
+                transactionTemplate.executeWithoutResult(status -> {
+                    cacheInvalidator.accountsChanging(changes.keySet());
+                    jdbcTemplate.batchUpdate(INSERT_TRANSACTION_SQL, pending, pending.size(), (ps, command) -> {
+                        ps.setLong(1, command.id);
+                        ps.setBigDecimal(2, command.amount);
+                        ps.setString(3, command.type.name());
+                        ps.setTimestamp(4, Timestamp.valueOf(command.timestamp));
+                        ps.setLong(5, command.accountId);
+                        ps.setString(6, command.idempotencyKey);
+                        ps.setBigDecimal(7, command.balanceAfter);
+                    });
+                    // One statement per account, so each update count is exact
+                    for (Map.Entry<Long, BigDecimal[]> change : changes.entrySet()) {
+                        BigDecimal[] beforeAndDelta = change.getValue();
+                        if (jdbcTemplate.update(APPLY_DELTA_SQL, beforeAndDelta[1], change.getKey(), beforeAndDelta[0]) != 1) {
+                            throw new BalanceChangedException();
+                        }
+                    }
+                });
+            } catch (DuplicateKeyException | BalanceChangedException e) {
+                commitIndividually();
+                pending.clear();
+                return;
+            } catch (RuntimeException e) {
+                // The in-memory state is ahead of the database; reload these accounts on next use
+                for (Command command : pending) {
+                    balances.remove(command.accountId);
+                    command.result.completeExceptionally(e);
+                }
+                pending.clear();
+                return;
+            }
+
+            commits.incrementAndGet();
+            for (Command command : pending) {
+                posted(command, command.balanceAfter);
+            }
+            pending.clear();
+        }
+
+        // A reused idempotency key failed the group; post each command on its own so only that one fails
+        private void commitIndividually() {
+            for (Command command : pending) {
+                balances.remove(command.accountId);
+            }
+            for (Command command : pending) {
+                BigDecimal balance;
+                try {
+                    balance = transactionTemplate.execute(status -> {
+                        cacheInvalidator.accountChanging(command.accountId);
+                        int updated = command.type == Transaction.TransactionType.DEPOSIT
+                                ? jdbcTemplate.update(ADD_BALANCE_SQL, command.amount, command.accountId)
+                                : jdbcTemplate.update(SUBTRACT_BALANCE_SQL, command.amount, command.accountId, command.amount);
+                        if (updated == 0) {
+                            throw new RuntimeException("Insufficient balance");
+                        }
+                        BigDecimal after = jdbcTemplate.queryForObject(SELECT_BALANCE_SQL, BigDecimal.class, command.accountId);
+                        jdbcTemplate.update(INSERT_TRANSACTION_SQL, command.id, command.amount, command.type.name(),
+                                Timestamp.valueOf(command.timestamp), command.accountId, command.idempotencyKey, after);
+                        return after;
+                    });
+                    commits.incrementAndGet();
+                } catch (RuntimeException e) {
+                    command.result.completeExceptionally(e);
+                    continue;
+                }
+                posted(command, balance);
+            }
+        }
+
+        // The command is committed whatever happens here, so a failure in the stats must not reach its caller
+        private void posted(Command command, BigDecimal balance) {
+            try {
+                dashboardStats.balanceChanged(command.type == Transaction.TransactionType.DEPOSIT
+                        ? command.amount : command.amount.negate());
+                dashboardStats.transactionPosted(command.timestamp, command.amount);
+            } catch (RuntimeException e) {
+                logger.warn("Dashboard stats not updated for ledger transaction {}", command.id, e);
+            }
+            command.result.complete(balance);
+        }
+    }
+
+    // A routed account's stored balance is not the one its shard holds: it was changed outside the engine
+    private static final class BalanceChangedException extends RuntimeException {
+        private BalanceChangedException() {
+            super("Balance changed outside the ledger engine", null, false, false);
+        }
+    }
+
+    private static final class Command {
+        private final Long accountId;
+        private final BigDecimal amount;
+        private final Transaction.TransactionType type;
+        private final String idempotencyKey;
+        private LocalDateTime timestamp;
+        private final CompletableFuture<BigDecimal> result = new CompletableFuture<>();
+        private BigDecimal balanceAfter;
+        private long id;
+
+        private Command(Long accountId, BigDecimal amount, Transaction.TransactionType type, String idempotencyKey) {
+            this.accountId = accountId;
+            this.amount = amount;
+            this.type = type;
+            this.idempotencyKey = idempotencyKey;
+        }
+    }
+}
@@ -1,30 +1,133 @@
 package com.banking.system.service;
 
+import com.banking.system.dto.LogPage;
+import com.banking.system.dto.LogView;
 import com.banking.system.entity.Log;
 import com.banking.system.entity.User;
 import com.banking.system.repository.LogRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Service
 @Transactional
 public class LogService {
     
+    private static final Logger logger = LoggerFactory.getLogger(LogService.class);
+    
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+    private static final int EXPORT_CHUNK_SIZE = 1000;
+    
     @Autowired
     private LogRepository logRepository;
     
-    public Log createLog(String action, User user) {
-        Log log = new Log(action, user);
-        return logRepository.save(log);
+    @Autowired
+    private AuditLogWriter auditLogWriter;
+    
+    public void createLog(String action, User user) {
+        createLog(action, user.getId());
     }
     
+    /**
+     * Records an audit entry. Inside a transaction the entry is handed to the writer
+     * once it commits; if the writer cannot take it then, the change has already
+     * committed, so the entry is logged as an error and counted as lost instead of
+     * failing the request. Outside a transaction the writer's exception propagates.
+     */
+    public void createLog(String action, Long userId) {
+        LocalDateTime timestamp = LocalDateTime.now();
+        
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    try {
+                        auditLogWriter.submit(userId, action, timestamp);
+                    } catch (RuntimeException e) {
+                        // The application log is the only remaining record of this entry
+                        logger.error("Audit entry not written: user={} timestamp={} action={}",
+                                userId, timestamp, action, e);
+                    }
+                }
+            });
+        } else {
+            auditLogWriter.submit(userId, action, timestamp);
+        }
+    }
+    
+    @Transactional(readOnly = true)
     public List<Log> getAllLogs() {
         return logRepository.findAllByOrderByTimestampDesc();
     }
     
+    @Transactional(readOnly = true)
     public List<Log> getLogsByUserId(Long userId) {
         return logRepository.findByUserIdOrderByTimestampDesc(userId);
     }
+    
+    @Transactional(readOnly = true)
+    public LogPage getLogPage(String username, LocalDateTime from, LocalDateTime to,
+                              LocalDateTime beforeTimestamp, Long beforeId, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        
+        // Fetch one extra row to know whether an older page exists
+        List<LogView> rows = logRepository.findPage(blankToNull(username), from, to,
+                beforeTimestamp, beforeId, PageRequest.of(0, pageSize + 1));
+        
+        boolean hasMore = rows.size() > pageSize;
+        return new LogPage(hasMore ? rows.subList(0, pageSize) : rows, hasMore);
+    }
+    
+    @Transactional(readOnly = true)
+    public void exportLogsCsv(String username, LocalDateTime from, LocalDateTime to, Writer writer) throws IOException {
+        writer.write("id,timestamp,username,action\n");
+        
+        LocalDateTime beforeTimestamp = null;
+        Long beforeId = null;
+        List<LogView> rows;
+        do {
+            rows = logRepository.findPage(blankToNull(username), from, to,
+                    beforeTimestamp, beforeId, PageRequest.of(0, EXPORT_CHUNK_SIZE));
+            
+            for (LogView row : rows) {
+                writer.write(row.getId() + "," + row.getTimestamp() + ","
+                        + csv(row.getUsername()) + "," + csv(row.getAction()) + "\n");
+            }
+            writer.flush();
+            
+            if (!rows.isEmpty()) {
+                LogView last = rows.get(rows.size() - 1);
+                beforeTimestamp = last.getTimestamp();
+                beforeId = last.getId();
+            }
+        } while (rows.size() == EXPORT_CHUNK_SIZE);
+    }
+    
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+    
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        // A spreadsheet would run a cell starting with one of these as a formula; the quote makes it text
+        if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
 }
@@ -0,0 +1,139 @@
+package com.banking.system.service;
+
+import com.banking.system.entity.Account;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs read-check-write operations on accounts in a transaction of their own and, when
+ * the write fails Account's version check because the row changed since it was read,
+ * runs the whole operation again after a jittered backoff. Conflicts, retries and
+ * given-up operations are counted per account (bank.account.conflicts and friends);
+ * only the first tracked-accounts accounts get their own tag, the rest share "other".
+ */
+@Component
+public class OptimisticRetry {
+
+    private static final Logger logger = LoggerFactory.getLogger(OptimisticRetry.class);
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.optimistic.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.optimistic.backoff-ms:5}")
+    private long backoffMs;
+
+    @Value("${app.optimistic.max-backoff-ms:200}")
+    private long maxBackoffMs;
+
+    @Value("${app.optimistic.tracked-accounts:1000}")
+    private int trackedAccounts;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final Map<Long, String> accountTags = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // accountId names the account for the counters when the conflict does not say which one it was
+    public <T> T run(Long accountId, Supplier<T> operation) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // A conflict would only surface when the caller's transaction commits, after the last retry
+            throw new IllegalStateException("Optimistic retries need their own transaction");
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    // Unbatched, a failed version check says which account it was
+                    Session session = entityManager.unwrap(Session.class);
+                    Integer batchSize = session.getJdbcBatchSize();
+                    session.setJdbcBatchSize(1);
+                    try {
+                        T result = operation.get();
+                        session.flush();
+                        return result;
+                    } finally {
+                        session.setJdbcBatchSize(batchSize);
+                    }
+                });
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                String account = tag(conflictingAccount(e, accountId));
+                meterRegistry.counter("bank.account.conflicts", "account", account).increment();
+                if (attempt >= maxAttempts) {
+                    meterRegistry.counter("bank.account.retries.exhausted", "account", account).increment();
+                    logger.warn("Gave up on account {} after {} conflicting attempts", account, attempt);
+                    throw new RuntimeException("Account is being updated by another request. Please try again.");
+                }
+                meterRegistry.counter("bank.account.retries", "account", account).increment();
+                logger.debug("Version conflict on account {}, attempt {} of {}", account, attempt, maxAttempts);
+                sleep(attempt);
+            }
+        }
+    }
+
+    // Full jitter: anywhere up to the exponential backoff, so colliding requests spread out
+    private void sleep(int attempt) {
+        long ceiling = Math.min(maxBackoffMs, backoffMs << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting to retry", e);
+        }
+    }
+
+    private Long conflictingAccount(RuntimeException e, Long accountId) {
+        if (e instanceof OptimisticLockException conflict && conflict.getEntity() instanceof Account account) {
+            return account.getId();
+        }
+        if (e instanceof ObjectOptimisticLockingFailureException conflict
+                && Account.class.getName().equals(conflict.getPersistentClassName())
+                && conflict.getIdentifier() instanceof Long id) {
+            return id;
+        }
+        return accountId;
+    }
+
+    private String tag(Long accountId) {
+        if (accountId == null) {
+            return "unknown";
+        }
+        String tag = accountTags.get(accountId);
+        if (tag != null) {
+            return tag;
+        }
+        if (accountTags.size() >= trackedAccounts) {
+            return "other";
+        }
+        return accountTags.computeIfAbsent(accountId, String::valueOf);
+    }
+}
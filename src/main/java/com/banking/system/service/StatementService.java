@@ -0,0 +1,341 @@
+package com.banking.system.service;
+
+import com.banking.system.dto.StatementBatchResult;
+import com.banking.system.dto.StatementSummary;
+import com.banking.system.entity.Account;
+import com.banking.system.entity.Transaction;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.util.HtmlUtils;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monthly account statements.
+ *
+ * A statement starts from the balance before the month, then reads the month's
+ * transactions once through a forward-only cursor, writing each line as it is
+ * read while keeping the running balance and totals. Nothing is collected, so
+ * memory does not depend on the number of transactions.
+ *
+ * The batch mode writes a statement file per account. Account ids are read a page
+ * at a time and handed to a fixed pool of workers; the submitter blocks while all
+ * workers are busy and a few statements are queued, so memory stays flat whatever
+ * the number of accounts. Each worker holds one connection while it streams.
+ */
+@Service
+public class StatementService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatementService.class);
+
+    private static final String STATEMENT_ROWS_SQL =
+            "SELECT timestamp, type, amount, counterparty_account_number FROM transactions " +
+            "WHERE account_id = ? AND timestamp >= ? AND timestamp < ? ORDER BY timestamp, id";
+    private static final int ACCOUNT_PAGE_SIZE = 500;
+    private static final long PROGRESS_INTERVAL_MILLIS = 10_000;
+
+    public enum Format {
+        CSV, HTML;
+
+        public static Format of(String format) {
+            try {
+                return valueOf(format.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Unsupported statement format: " + format);
+            }
+        }
+
+        public String extension() {
+            return name().toLowerCase();
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private BalanceHistoryService balanceHistory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.statements.fetch-size:500}")
+    private int fetchSize;
+
+    @Value("${app.statements.batch-threads:4}")
+    private int batchThreads;
+
+    @Value("${app.statements.output-dir:statements}")
+    private String outputDir;
+
+    private TransactionTemplate readOnlyTransaction;
+    private final AtomicBoolean batchRunning = new AtomicBoolean();
+
+    @PostConstruct
+    public void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    // Opening balance and rows are read in one transaction so they agree with each other
+    public StatementSummary writeStatement(Long accountId, YearMonth month, Format format, Writer out) throws IOException {
+        try {
+            return readOnlyTransaction.execute(status -> {
+                Account account = accountService.getAccountById(accountId);
+                StatementWriter writer = format == Format.CSV ? new CsvWriter(out) : new HtmlWriter(out);
+                return stream(account, month, writer);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public StatementBatchResult generateAll(YearMonth month, Format format) throws IOException, InterruptedException {
+        if (!batchRunning.compareAndSet(false, true)) {
+            throw new RuntimeException("A statement batch is already running");
+        }
+        try {
+            return runBatch(month, format);
+        } finally {
+            batchRunning.set(false);
+        }
+    }
+
+    private StatementBatchResult runBatch(YearMonth month, Format format) throws IOException, InterruptedException {
+        Path dir = Paths.get(outputDir, month.toString());
+        Files.createDirectories(dir);
+
+        long start = System.currentTimeMillis();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(batchThreads, runnable -> {
+            Thread thread = new Thread(runnable, "statement-worker-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Running plus queued statements
+        Semaphore slots = new Semaphore(batchThreads * 2);
+        AtomicLong done = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        long lastProgress = start;
+        try {
+            long afterId = 0;
+            List<Map<String, Object>> page;
+            do {
+                page = jdbcTemplate.queryForList("SELECT id, account_number FROM accounts WHERE id > ? ORDER BY id LIMIT ?",
+                        afterId, ACCOUNT_PAGE_SIZE);
+                for (Map<String, Object> row : page) {
+                    Long accountId = ((Number) row.get("id")).longValue();
+                    Path file = dir.resolve(row.get("account_number") + "." + format.extension());
+                    slots.acquire();
+                    workers.execute(() -> {
+                        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                            writeStatement(accountId, month, format, out);
+                        } catch (IOException | RuntimeException e) {
+                            failed.incrementAndGet();
+                            logger.warn("Statement {} for account {} failed", month, accountId, e);
+                        } finally {
+                            done.incrementAndGet();
+                            slots.release();
+                        }
+                    });
+                    afterId = accountId;
+                }
+
+                long now = System.currentTimeMillis();
+                if (now - lastProgress >= PROGRESS_INTERVAL_MILLIS) {
+                    logger.info("Statements {}: {} accounts, {} accounts/s", month, done.get(),
+                            String.format("%.1f", done.get() * 1000.0 / (now - start)));
+                    lastProgress = now;
+                }
+            } while (page.size() == ACCOUNT_PAGE_SIZE);
+        } finally {
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+
+        StatementBatchResult result = new StatementBatchResult(month, done.get(), failed.get(),
+                System.currentTimeMillis() - start);
+        logger.info("Statements {}: {} accounts ({} failed) in {} ms, {} accounts/s", month, result.getAccounts(),
+                result.getFailed(), result.getElapsedMillis(), String.format("%.1f", result.getAccountsPerSecond()));
+        return result;
+    }
+
+    private StatementSummary stream(Account account, YearMonth month, StatementWriter writer) {
+        LocalDateTime from = month.atDay(1).atStartOfDay();
+        LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+        BigDecimal opening = balanceHistory.getBalanceBefore(account.getId(), from);
+        Totals totals = new Totals(opening);
+
+        try {
+            writer.begin(account.getAccountNumber(), month, opening);
+            jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(STATEMENT_ROWS_SQL,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                ps.setLong(1, account.getId());
+                ps.setTimestamp(2, Timestamp.valueOf(from));
+                ps.setTimestamp(3, Timestamp.valueOf(to));
+                return ps;
+            }, rs -> {
+                Transaction.TransactionType type = Transaction.TransactionType.valueOf(rs.getString(2));
+                BigDecimal amount = rs.getBigDecimal(3);
+                totals.add(type.isCredit(), amount);
+                try {
+                    writer.line(rs.getTimestamp(1).toLocalDateTime(), type, amount, rs.getString(4), totals.balance);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.end(totals.balance, totals.credits, totals.debits, totals.count);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return new StatementSummary(account.getAccountNumber(), month, opening, totals.balance,
+                totals.credits, totals.debits, totals.count);
+    }
+
+    private static final class Totals {
+        private BigDecimal balance;
+        private BigDecimal credits = BigDecimal.ZERO;
+        private BigDecimal debits = BigDecimal.ZERO;
+        private long count;
+
+        private Totals(BigDecimal opening) {
+            this.balance = opening;
+        }
+
+        private void add(boolean credit, BigDecimal amount) {
+            if (credit) {
+                credits = credits.add(amount);
+                balance = balance.add(amount);
+            } else {
+                debits = debits.add(amount);
+                balance = balance.subtract(amount);
+            }
+            count++;
+        }
+    }
+
+    private static String money(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).toPlainString();
+    }
+
+    private interface StatementWriter {
+        void begin(String accountNumber, YearMonth month, BigDecimal opening) throws IOException;
+        void line(LocalDateTime timestamp, Transaction.TransactionType type, BigDecimal amount,
+                  String counterparty, BigDecimal balance) throws IOException;
+        void end(BigDecimal closing, BigDecimal credits, BigDecimal debits, long count) throws IOException;
+    }
+
+    // Opening and closing balances are the first and last lines, so the file stays plain CSV
+    private static final class CsvWriter implements StatementWriter {
+        private final Writer out;
+
+        private CsvWriter(Writer out) {
+            this.out = out;
+        }
+
+        @Override
+        public void begin(String accountNumber, YearMonth month, BigDecimal opening) throws IOException {
+            out.write("date,type,counterparty,debit,credit,balance\n");
+            out.write(month.atDay(1) + ",OPENING_BALANCE,,,," + money(opening) + "\n");
+        }
+
+        @Override
+        public void line(LocalDateTime timestamp, Transaction.TransactionType type, BigDecimal amount,
+                         String counterparty, BigDecimal balance) throws IOException {
+            out.write(timestamp.toString());
+            out.write(',');
+            out.write(type.name());
+            out.write(',');
+            if (counterparty != null) {
+                out.write(counterparty);
+            }
+            out.write(type.isCredit() ? ",," : ",");
+            out.write(money(amount));
+            out.write(type.isCredit() ? "," : ",,");
+            out.write(money(balance));
+            out.write('\n');
+        }
+
+        @Override
+        public void end(BigDecimal closing, BigDecimal credits, BigDecimal debits, long count) throws IOException {
+            out.write(",CLOSING_BALANCE,," + money(debits) + "," + money(credits) + ","
+                    + money(closing) + "\n");
+            out.flush();
+        }
+    }
+
+    private static final class HtmlWriter implements StatementWriter {
+        private final Writer out;
+
+        private HtmlWriter(Writer out) {
+            this.out = out;
+        }
+
+        @Override
+        public void begin(String accountNumber, YearMonth month, BigDecimal opening) throws IOException {
+            String title = "Statement " + HtmlUtils.htmlEscape(accountNumber) + " - " + month;
+            out.write("<!DOCTYPE html>\n<html><head><meta charset=\"UTF-8\"><title>" + title + "</title>\n"
+                    + "<style>body{font-family:sans-serif;margin:2em}table{border-collapse:collapse;width:100%}"
+                    + "th,td{border-bottom:1px solid #ddd;padding:4px 8px;text-align:left}"
+                    + "td.num,th.num{text-align:right}</style></head><body>\n"
+                    + "<h2>" + title + "</h2>\n"
+                    + "<p>Opening balance: MAD " + money(opening) + "</p>\n"
+                    + "<table><tr><th>Date</th><th>Type</th><th>Counterparty</th><th class=\"num\">Debit</th>"
+                    + "<th class=\"num\">Credit</th><th class=\"num\">Balance</th></tr>\n");
+        }
+
+        @Override
+        public void line(LocalDateTime timestamp, Transaction.TransactionType type, BigDecimal amount,
+                         String counterparty, BigDecimal balance) throws IOException {
+            out.write("<tr><td>" + timestamp.toLocalDate() + " " + timestamp.toLocalTime().withNano(0)
+                    + "</td><td>" + type.name()
+                    + "</td><td>" + (counterparty == null ? "" : HtmlUtils.htmlEscape(counterparty))
+                    + "</td><td class=\"num\">" + (type.isCredit() ? "" : money(amount))
+                    + "</td><td class=\"num\">" + (type.isCredit() ? money(amount) : "")
+                    + "</td><td class=\"num\">" + money(balance) + "</td></tr>\n");
+        }
+
+        @Override
+        public void end(BigDecimal closing, BigDecimal credits, BigDecimal debits, long count) throws IOException {
+            out.write("<tr><th colspan=\"3\">" + count + " transactions</th><th class=\"num\">" + money(debits)
+                    + "</th><th class=\"num\">" + money(credits) + "</th><th class=\"num\">"
+                    + money(closing) + "</th></tr>\n</table>\n"
+                    + "<p>Closing balance: MAD " + money(closing) + "</p>\n</body></html>\n");
+            out.flush();
+        }
+    }
+}
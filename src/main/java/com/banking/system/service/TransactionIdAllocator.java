@@ -0,0 +1,139 @@
+package com.banking.system.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out transaction ids, for the entity (via TransactionIdGenerator) and for
+ * rows written with plain JDBC (ledger engine, bulk import), so rows can be
+ * inserted in batches.
+ *
+ * Ids are reserved from the id_blocks table a block at a time. The next block is
+ * reserved in the background once half of the current one is used, so a caller
+ * that already holds row locks normally gets its id from memory. Reservations use
+ * IdBlocks' own pool, so the prefetch never queues behind the requests waiting
+ * for it.
+ */
+// Needs the schema, so start after Hibernate has created or updated it
+@Service
+@DependsOn("entityManagerFactory")
+public class TransactionIdAllocator {
+    
+    private static final String SEGMENT = "transactions";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private IdBlocks idBlocks;
+    
+    @Value("${app.transaction-ids.block-size:1000}")
+    private int blockSize;
+    
+    private final ExecutorService prefetcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "transaction-id-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    // A lock rather than a monitor: a block switch does database I/O, which would pin a virtual thread's carrier
+    private final ReentrantLock lock = new ReentrantLock();
+    
+    // Current block [next, end) and the reservation of the following one
+    private long next;
+    private long end;
+    private Future<long[]> prefetched;
+    
+    @PostConstruct
+    public void init() {
+        alignWithExistingRows();
+        // The first requests should not have to reserve a block while holding row locks either
+        lock.lock();
+        try {
+            switchBlock();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @PreDestroy
+    public void stop() {
+        prefetcher.shutdownNow();
+    }
+    
+    public long next() {
+        lock.lock();
+        try {
+            if (next == end) {
+                switchBlock();
+            }
+            long id = next++;
+            if (prefetched == null && end - next <= blockSize / 2) {
+                prefetched = prefetcher.submit(this::reserveBlock);
+            }
+            return id;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public long[] allocate(int count) {
+        lock.lock();
+        try {
+            long[] ids = new long[count];
+            for (int i = 0; i < count; i++) {
+                ids[i] = next();
+            }
+            return ids;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void switchBlock() {
+        long[] block = null;
+        if (prefetched != null) {
+            try {
+                block = prefetched.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                // Reserve on this thread instead
+            }
+            prefetched = null;
+        }
+        if (block == null) {
+            block = reserveBlock();
+        }
+        next = block[0];
+        end = block[1];
+    }
+    
+    private long[] reserveBlock() {
+        long first = idBlocks.reserve(SEGMENT, blockSize);
+        return new long[] {first, first + blockSize};
+    }
+    
+    // Databases created while transactions used IDENTITY already have rows; start above them
+    private void alignWithExistingRows() {
+        long first = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) + 1 FROM transactions", Long.class);
+        List<Long> current = jdbcTemplate.queryForList(
+                "SELECT next_val FROM id_blocks WHERE name = ?", Long.class, SEGMENT);
+        if (current.isEmpty()) {
+            jdbcTemplate.update("INSERT INTO id_blocks (name, next_val) VALUES (?, ?)", SEGMENT, first);
+        } else if (current.get(0) < first) {
+            jdbcTemplate.update("UPDATE id_blocks SET next_val = ? WHERE name = ? AND next_val < ?", first, SEGMENT, first);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.banking.system.service;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+/**
+ * Hibernate id generator for Transaction. Hibernate instantiates it itself, so the
+ * Spring-managed allocator is handed over through Hibernate's settings (see
+ * PersistenceConfig) and looked up on first use, after the context has started.
+ */
+public class TransactionIdGenerator implements IdentifierGenerator {
+    
+    public static final String ALLOCATOR_SETTING = "app.transaction-id-allocator";
+    
+    private Supplier<TransactionIdAllocator> allocatorLookup;
+    private volatile TransactionIdAllocator allocator;
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) {
+        Object setting = serviceRegistry.getService(ConfigurationService.class).getSettings().get(ALLOCATOR_SETTING);
+        if (!(setting instanceof Supplier<?>)) {
+            throw new IllegalStateException("Hibernate setting " + ALLOCATOR_SETTING + " is not set");
+        }
+        allocatorLookup = (Supplier<TransactionIdAllocator>) setting;
+    }
+    
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        TransactionIdAllocator current = allocator;
+        if (current == null) {
+            current = allocatorLookup.get();
+            allocator = current;
+        }
+        return current.next();
+    }
+}
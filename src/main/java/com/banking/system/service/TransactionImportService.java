@@ -0,0 +1,450 @@
+package com.banking.system.service;
+
+import com.banking.system.dto.ImportResult;
+import com.banking.system.entity.Transaction;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Posts transactions from a CSV or NDJSON file.
+ *
+ * The file is read line by line and handled in chunks, each in its own database
+ * transaction: the chunk's accounts are locked in id order, lines are applied in
+ * file order against the locked balances (a withdrawal that does not fit is
+ * rejected, the rest of the chunk still posts), transaction rows go in as JDBC
+ * batches and each account gets one UPDATE with its net change. A report line is
+ * written for every input line once its chunk has committed.
+ *
+ * Every line is checked on its own before its chunk is posted, including that
+ * the amount and the resulting balance fit the DECIMAL(38,2) columns, so a bad
+ * line is rejected by itself instead of failing the chunk's transaction.
+ *
+ * CSV lines are {@code account_number,type,amount} with an optional header; a
+ * field may be double-quoted (RFC 4180, within one line). NDJSON lines are {@code {"accountNumber": "...", "type": "DEPOSIT", "amount": 10.00}}.
+ */
+@Service
+public class TransactionImportService {
+
+    private static final String INSERT_TRANSACTION_SQL =
+            "INSERT INTO transactions (id, amount, type, timestamp, account_id, balance_after) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String ADD_BALANCE_SQL = "UPDATE accounts SET balance = balance + ?, version = version + 1 WHERE id = ?";
+    private static final int BATCH_SIZE = 1000;
+    private static final int IN_LIST_SIZE = 1000;
+    // Amount and balance columns are DECIMAL(38,2)
+    private static final int MAX_INTEGER_DIGITS = 36;
+
+    public enum Format {
+        CSV, NDJSON;
+
+        // An explicit format wins; otherwise go by the file extension
+        public static Format of(String format, String filename) {
+            if (format != null && !format.isBlank()) {
+                try {
+                    return valueOf(format.trim().toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    throw new RuntimeException("Unsupported import format: " + format);
+                }
+            }
+            if (filename != null) {
+                String name = filename.toLowerCase();
+                if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+                    return NDJSON;
+                }
+            }
+            return CSV;
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TransactionIdAllocator idAllocator;
+
+    @Autowired
+    private LedgerEngine ledgerEngine;
+
+    @Autowired
+    private CacheInvalidator cacheInvalidator;
+
+    @Autowired
+    private DashboardStatsService dashboardStats;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.import.chunk-size:10000}")
+    private int chunkSize;
+
+    private TransactionTemplate transactionTemplate;
+    private ObjectReader jsonReader;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        jsonReader = objectMapper.reader().with(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+    }
+
+    public ImportResult importTransactions(InputStream input, Format format, Writer report, boolean rejectedOnly)
+            throws IOException {
+        long start = System.currentTimeMillis();
+        Import run = new Import(report, rejectedOnly);
+        report.write("line,status,account,type,amount,message\n");
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 1 << 16);
+        List<Entry> chunk = new ArrayList<>(chunkSize);
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (lineNumber == 1 && format == Format.CSV && isCsvHeader(line))) {
+                continue;
+            }
+            chunk.add(format == Format.CSV ? parseCsv(lineNumber, line) : parseJson(lineNumber, line));
+            if (chunk.size() == chunkSize) {
+                run.process(chunk);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            run.process(chunk);
+        }
+        report.flush();
+
+        return new ImportResult(run.accepted + run.rejected, run.accepted, run.rejected,
+                System.currentTimeMillis() - start);
+    }
+
+    private static boolean isCsvHeader(String line) {
+        String lower = line.toLowerCase();
+        return lower.contains("account") && lower.contains("amount");
+    }
+
+    private static Entry parseCsv(long lineNumber, String line) {
+        List<String> fields = line.indexOf('"') < 0 ? List.of(line.split(",", -1)) : quotedCsvFields(line);
+        if (fields == null) {
+            return Entry.invalid(lineNumber, "Unterminated quoted field");
+        }
+        if (fields.size() != 3) {
+            return Entry.invalid(lineNumber, "Expected 3 fields");
+        }
+        return Entry.of(lineNumber, fields.get(0).trim(), fields.get(1).trim(), fields.get(2).trim());
+    }
+
+    // Quoted fields may hold commas and doubled quotes; null when a quote is left open
+    private static List<String> quotedCsvFields(String line) {
+        List<String> fields = new ArrayList<>(3);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '"' && field.toString().isBlank()) {
+                field.setLength(0);
+                quoted = true;
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private Entry parseJson(long lineNumber, String line) {
+        try {
+            JsonNode node = jsonReader.readTree(line);
+            JsonNode amount = node.path("amount");
+            return Entry.of(lineNumber, node.path("accountNumber").asText(""), node.path("type").asText(""),
+                    amount.isNumber() ? amount.decimalValue().toPlainString() : amount.asText(""));
+        } catch (IOException e) {
+            return Entry.invalid(lineNumber, "Malformed JSON");
+        }
+    }
+
+    private final class Import {
+        private final Writer report;
+        private final boolean rejectedOnly;
+        // Account number to id for every number seen so far; null for unknown numbers
+        private final Map<String, Long> accountIds = new HashMap<>();
+        private LocalDateTime postedAt;
+        private long accepted;
+        private long rejected;
+
+        private Import(Writer report, boolean rejectedOnly) {
+            this.report = report;
+            this.rejectedOnly = rejectedOnly;
+        }
+
+        private void process(List<Entry> chunk) throws IOException {
+            resolveAccounts(chunk);
+            for (Entry entry : chunk) {
+                if (entry.error == null) {
+                    entry.accountId = accountIds.get(entry.accountNumber);
+                    if (entry.accountId == null) {
+                        entry.error = "Unknown account";
+                    } else if (ledgerEngine.handles(entry.accountId)) {
+                        entry.error = "Account is managed by the ledger engine";
+                    }
+                }
+            }
+
+            // Ids come before the account locks; those of lines rejected under the locks are left unused
+            List<Entry> candidates = new ArrayList<>();
+            for (Entry entry : chunk) {
+                if (entry.error == null) {
+                    candidates.add(entry);
+                }
+            }
+            long[] ids = idAllocator.allocate(candidates.size());
+            for (int i = 0; i < ids.length; i++) {
+                candidates.get(i).id = ids[i];
+            }
+
+            try {
+                BigDecimal[] totals = transactionTemplate.execute(status -> post(chunk));
+                dashboardStats.balanceChanged(totals[0]);
+                dashboardStats.transactionsPosted(postedAt, totals[2].longValue(), totals[1]);
+            } catch (RuntimeException e) {
+                for (Entry entry : chunk) {
+                    if (entry.error == null) {
+                        entry.error = "Not posted: " + e.getMessage();
+                    }
+                }
+            }
+
+            for (Entry entry : chunk) {
+                if (entry.error == null) {
+                    accepted++;
+                } else {
+                    rejected++;
+                }
+                if (entry.error != null || !rejectedOnly) {
+                    entry.writeTo(report);
+                }
+            }
+        }
+
+        private void resolveAccounts(List<Entry> chunk) {
+            List<String> unresolved = new ArrayList<>();
+            for (Entry entry : chunk) {
+                if (entry.error == null && !accountIds.containsKey(entry.accountNumber)) {
+                    accountIds.put(entry.accountNumber, null);
+                    unresolved.add(entry.accountNumber);
+                }
+            }
+            for (List<String> numbers : partition(unresolved)) {
+                jdbcTemplate.query("SELECT id, account_number FROM accounts WHERE account_number IN ("
+                                + placeholders(numbers.size()) + ")",
+                        rs -> { accountIds.put(rs.getString(2), rs.getLong(1)); },
+                        numbers.toArray());
+            }
+        }
+
+        // Returns {net balance change, volume, accepted count}
+        private BigDecimal[] post(List<Entry> chunk) {
+            // Lock in id order so concurrent imports and transfers cannot deadlock with this one
+            Map<Long, BigDecimal> balances = new TreeMap<>();
+            for (Entry entry : chunk) {
+                if (entry.error == null) {
+                    balances.put(entry.accountId, null);
+                }
+            }
+            for (List<Long> ids : partition(new ArrayList<>(balances.keySet()))) {
+                jdbcTemplate.query("SELECT id, balance FROM accounts WHERE id IN (" + placeholders(ids.size())
+                                + ") ORDER BY id FOR UPDATE",
+                        rs -> { balances.put(rs.getLong(1), rs.getBigDecimal(2)); },
+                        ids.toArray());
+            }
+            // Taken under the locks, so rows of one account sort in the order they were applied
+            postedAt = LocalDateTime.now();
+
+            Map<Long, BigDecimal> deltas = new TreeMap<>();
+            List<Entry> posted = new ArrayList<>();
+            BigDecimal net = BigDecimal.ZERO;
+            BigDecimal volume = BigDecimal.ZERO;
+            for (Entry entry : chunk) {
+                if (entry.error != null) {
+                    continue;
+                }
+                BigDecimal balance = balances.get(entry.accountId);
+                if (balance == null) {
+                    // Deleted since its number was resolved
+                    accountIds.put(entry.accountNumber, null);
+                    entry.error = "Unknown account";
+                    continue;
+                }
+                BigDecimal delta = entry.type == Transaction.TransactionType.DEPOSIT ? entry.amount : entry.amount.negate();
+                if (balance.add(delta).signum() < 0) {
+                    entry.error = "Insufficient balance";
+                    meterRegistry.counter("bank.transactions.rejected",
+                            "reason", "insufficient_balance", "path", "import").increment();
+                    continue;
+                }
+                if (!fits(balance.add(delta))) {
+                    entry.error = "Balance would be too large";
+                    continue;
+                }
+                balances.put(entry.accountId, balance.add(delta));
+                entry.balanceAfter = balance.add(delta);
+                deltas.merge(entry.accountId, delta, BigDecimal::add);
+                net = net.add(delta);
+                volume = volume.add(entry.amount);
+                posted.add(entry);
+            }
+
+            Timestamp timestamp = Timestamp.valueOf(postedAt);
+            jdbcTemplate.batchUpdate(INSERT_TRANSACTION_SQL, posted, BATCH_SIZE, (ps, entry) -> {
+                ps.setLong(1, entry.id);
+                ps.setBigDecimal(2, entry.amount);
+                ps.setString(3, entry.type.name());
+                ps.setTimestamp(4, timestamp);
+                ps.setLong(5, entry.accountId);
+                ps.setBigDecimal(6, entry.balanceAfter);
+            });
+            cacheInvalidator.accountsChanging(deltas.keySet());
+            jdbcTemplate.batchUpdate(ADD_BALANCE_SQL, new ArrayList<>(deltas.entrySet()), BATCH_SIZE, (ps, delta) -> {
+                ps.setBigDecimal(1, delta.getValue());
+                ps.setLong(2, delta.getKey());
+            });
+            return new BigDecimal[] {net, volume, BigDecimal.valueOf(posted.size())};
+        }
+    }
+
+    private static boolean fits(BigDecimal value) {
+        return value.precision() - value.scale() <= MAX_INTEGER_DIGITS;
+    }
+
+    private static <T> List<List<T>> partition(List<T> values) {
+        if (values.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<List<T>> parts = new ArrayList<>();
+        for (int i = 0; i < values.size(); i += IN_LIST_SIZE) {
+            parts.add(values.subList(i, Math.min(i + IN_LIST_SIZE, values.size())));
+        }
+        return parts;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+
+    private static final class Entry {
+        private final long lineNumber;
+        private String accountNumber = "";
+        private String rawType = "";
+        private String rawAmount = "";
+        private Transaction.TransactionType type;
+        private BigDecimal amount;
+        private Long accountId;
+        private BigDecimal balanceAfter;
+        private long id;
+        private String error;
+
+        private Entry(long lineNumber) {
+            this.lineNumber = lineNumber;
+        }
+
+        private static Entry invalid(long lineNumber, String error) {
+            Entry entry = new Entry(lineNumber);
+            entry.error = error;
+            return entry;
+        }
+
+        private static Entry of(long lineNumber, String accountNumber, String type, String amount) {
+            Entry entry = new Entry(lineNumber);
+            entry.accountNumber = accountNumber;
+            entry.rawType = type;
+            entry.rawAmount = amount;
+            if (accountNumber.isEmpty()) {
+                entry.error = "Account number is required";
+                return entry;
+            }
+            if (type.equalsIgnoreCase("DEPOSIT")) {
+                entry.type = Transaction.TransactionType.DEPOSIT;
+            } else if (type.equalsIgnoreCase("WITHDRAW")) {
+                entry.type = Transaction.TransactionType.WITHDRAW;
+            } else {
+                entry.error = "Invalid transaction type";
+                return entry;
+            }
+            try {
+                entry.amount = new BigDecimal(amount);
+            } catch (NumberFormatException e) {
+                entry.error = "Invalid amount";
+                return entry;
+            }
+            if (entry.amount.signum() <= 0 || entry.amount.scale() > 2) {
+                entry.error = "Amount must be positive with at most 2 decimals";
+            } else if (!fits(entry.amount)) {
+                entry.error = "Amount is too large";
+            }
+            return entry;
+        }
+
+        private void writeTo(Writer writer) throws IOException {
+            writer.write(Long.toString(lineNumber));
+            writer.write(error == null ? ",ACCEPTED," : ",REJECTED,");
+            writer.write(csv(accountNumber));
+            writer.write(',');
+            writer.write(csv(rawType));
+            writer.write(',');
+            writer.write(csv(rawAmount));
+            writer.write(',');
+            writer.write(error == null ? "" : csv(error));
+            writer.write('\n');
+        }
+
+        private static String csv(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+}
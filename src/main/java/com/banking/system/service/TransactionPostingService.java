@@ -0,0 +1,99 @@
+package com.banking.system.service;
+
+import com.banking.system.config.ReplicaRouter;
+import com.banking.system.dto.PostedTransaction;
+import com.banking.system.dto.TransactionRequest;
+import com.banking.system.entity.Transaction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Posts a user's deposit, withdrawal or transfer request, shared by the HTML form
+ * and the JSON API. Not transactional itself: each step runs in its own
+ * transaction, and routed accounts are posted by the ledger engine without holding
+ * a connection while waiting.
+ */
+@Service
+public class TransactionPostingService {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private LogService logService;
+
+    @Autowired
+    private LedgerEngine ledgerEngine;
+
+    @Autowired
+    private IdempotencyCache idempotencyCache;
+
+    @Autowired
+    private ReplicaRouter replicaRouter;
+
+    /**
+     * Returns what was posted. A request whose idempotency key was already posted
+     * on the account posts nothing and returns the original transaction.
+     */
+    public PostedTransaction post(Long userId, String username, TransactionRequest request) {
+        String key = request.getIdempotencyKey();
+        boolean transfer = "TRANSFER".equalsIgnoreCase(request.getType());
+        String type = transfer ? "TRANSFER" : Transaction.TransactionType.valueOf(request.getType().toUpperCase()).name();
+        Supplier<PostedTransaction> post = () -> {
+            if (!accountService.isOwnedBy(request.getAccountId(), userId)) {
+                throw new RuntimeException("Account not found");
+            }
+            if (transfer) {
+                String target = request.getTargetAccountNumber();
+                if (target == null || target.isBlank()) {
+                    throw new RuntimeException("Target account is required for a transfer");
+                }
+                List<Transaction> legs = transactionService.transfer(request.getAccountId(), target.trim(),
+                        request.getAmount(), key);
+                logService.createLog(username + " transferred MAD " + request.getAmount()
+                        + " to " + target.trim(), userId);
+                return PostedTransaction.of(legs.get(0), false);
+            }
+
+            Transaction.TransactionType postType = Transaction.TransactionType.valueOf(type);
+            if (ledgerEngine.handles(request.getAccountId())) {
+                ledgerEngine.apply(request.getAccountId(), request.getAmount(), postType, key);
+            } else {
+                transactionService.createTransaction(request.getAccountId(), request.getAmount(), postType, key);
+            }
+            logService.createLog(username + " performed " + type + " of MAD " + request.getAmount(), userId);
+            return new PostedTransaction(type, request.getAmount(), false);
+        };
+
+        PostedTransaction posted;
+        if (key == null || key.isBlank()) {
+            posted = post.get();
+        } else {
+            // Keys are unique per account, like the constraint; the user is in the key so one cannot wait on another's
+            boolean[] ran = new boolean[1];
+            posted = idempotencyCache.execute(userId + ":" + request.getAccountId() + ":" + key, () -> {
+                ran[0] = true;
+                try {
+                    return post.get();
+                } catch (DataIntegrityViolationException e) {
+                    // Posted earlier, but no longer (or never) in this instance's cache
+                    Transaction original = transactionService.findPosted(request.getAccountId(), key).orElseThrow(() -> e);
+                    idempotencyCache.recordSuppressed();
+                    return PostedTransaction.of(original, true);
+                }
+            });
+            if (!ran[0]) {
+                posted = posted.asReplay();
+            }
+        }
+        // Ledger-routed posts commit on a shard thread, outside the user's own transactions
+        replicaRouter.markWritten(userId);
+        return posted;
+    }
+}
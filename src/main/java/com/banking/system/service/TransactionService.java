@@ -1,46 +1,156 @@
 package com.banking.system.service;
 
+import com.banking.system.dto.TransactionPage;
+import com.banking.system.dto.TransactionView;
 import com.banking.system.entity.Account;
 import com.banking.system.entity.Transaction;
 import com.banking.system.repository.TransactionRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
+@Timed(value = "bank.service", histogram = true, percentiles = {0.5, 0.99, 0.999})
 public class TransactionService {
     
+    public static final int DEFAULT_HISTORY_SIZE = 20;
+    public static final int MAX_HISTORY_SIZE = 200;
+    
     @Autowired
     private TransactionRepository transactionRepository;
     
     @Autowired
     private AccountService accountService;
     
+    @Autowired
+    private DashboardStatsService dashboardStats;
+    
+    @Autowired
+    private LedgerEngine ledgerEngine;
+    
     public Transaction createTransaction(Long accountId, BigDecimal amount, 
                                          Transaction.TransactionType type) {
-        Account account = accountService.getAccountById(accountId);
-        
+        return createTransaction(accountId, amount, type, null);
+    }
+    
+    // Throws DataIntegrityViolationException if the idempotency key was already used on the account
+    public Transaction createTransaction(Long accountId, BigDecimal amount,
+                                         Transaction.TransactionType type, String idempotencyKey) {
+        BigDecimal balance;
         if (type == Transaction.TransactionType.DEPOSIT) {
-            accountService.deposit(accountId, amount);
+            balance = accountService.deposit(accountId, amount);
+        } else if (type == Transaction.TransactionType.WITHDRAW) {
+            balance = accountService.withdraw(accountId, amount);
+        } else {
+            throw new RuntimeException("Unsupported transaction type");
+        }
+        
+        Transaction transaction = new Transaction(amount, type, accountService.getAccountReference(accountId));
+        transaction.setBalanceAfter(balance);
+        transaction.setIdempotencyKey(idempotencyKey);
+        transaction = transactionRepository.save(transaction);
+        dashboardStats.transactionPosted(transaction.getTimestamp(), amount);
+        return transaction;
+    }
+    
+    /**
+     * Moves money between two accounts in one database transaction. The two balance
+     * UPDATEs run in ascending account id order; each takes its row lock, so opposite
+     * transfers between the same accounts queue up instead of deadlocking. The two
+     * ledger legs are inserted as one JDBC batch.
+     */
+    public List<Transaction> transfer(Long fromAccountId, String toAccountNumber, BigDecimal amount,
+                                      String idempotencyKey) {
+        Account from = accountService.getAccountById(fromAccountId);
+        Account to = accountService.getAccountByNumber(toAccountNumber);
+        if (from.getId().equals(to.getId())) {
+            throw new RuntimeException("Cannot transfer to the same account");
+        }
+        if (ledgerEngine.handles(from.getId()) || ledgerEngine.handles(to.getId())) {
+            throw new RuntimeException("Transfers are not available for this account");
+        }
+        
+        BigDecimal fromBalance;
+        BigDecimal toBalance;
+        if (from.getId() < to.getId()) {
+            fromBalance = accountService.withdraw(from.getId(), amount);
+            toBalance = accountService.deposit(to.getId(), amount);
         } else {
-            accountService.withdraw(accountId, amount);
+            toBalance = accountService.deposit(to.getId(), amount);
+            fromBalance = accountService.withdraw(from.getId(), amount);
         }
         
-        Transaction transaction = new Transaction(amount, type, account);
-        return transactionRepository.save(transaction);
+        Transaction out = new Transaction(amount, Transaction.TransactionType.TRANSFER_OUT,
+                accountService.getAccountReference(from.getId()));
+        out.setCounterpartyAccountNumber(to.getAccountNumber());
+        out.setBalanceAfter(fromBalance);
+        out.setIdempotencyKey(idempotencyKey);
+        Transaction in = new Transaction(amount, Transaction.TransactionType.TRANSFER_IN,
+                accountService.getAccountReference(to.getId()));
+        in.setCounterpartyAccountNumber(from.getAccountNumber());
+        in.setBalanceAfter(toBalance);
+        in.setTimestamp(out.getTimestamp());
+        
+        List<Transaction> legs = transactionRepository.saveAll(List.of(out, in));
+        dashboardStats.transactionPosted(out.getTimestamp(), amount);
+        return legs;
     }
     
+    // Tells a duplicate key from a real failure, so it must not read a lagging replica
+    public Optional<Transaction> findPosted(Long accountId, String idempotencyKey) {
+        return transactionRepository.findByAccount_IdAndIdempotencyKey(accountId, idempotencyKey);
+    }
+    
+    @Transactional(readOnly = true)
     public List<Transaction> getTransactionsByAccountId(Long accountId) {
         return transactionRepository.findByAccountIdOrderByTimestampDesc(accountId);
     }
     
+    @Transactional(readOnly = true)
     public List<Transaction> getTransactionsByUserId(Long userId) {
         return transactionRepository.findByAccount_User_IdOrderByTimestampDesc(userId);
     }
     
+    @Transactional(readOnly = true)
+    public TransactionPage getTransactionHistory(Long userId, LocalDateTime beforeTimestamp, Long beforeId, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_HISTORY_SIZE));
+        
+        // Fetch one extra row to know whether an older page exists
+        List<TransactionView> rows = transactionRepository.findHistoryPage(userId, beforeTimestamp, beforeId,
+                PageRequest.of(0, pageSize + 1));
+        
+        boolean hasMore = rows.size() > pageSize;
+        return new TransactionPage(hasMore ? rows.subList(0, pageSize) : rows, hasMore);
+    }
+    
+    /**
+     * Passes up to limit rows of one account's history, newest first, to the sink
+     * while they are read. Returns the number of rows passed.
+     */
+    @Transactional(readOnly = true)
+    public int streamAccountHistory(Long accountId, LocalDateTime beforeTimestamp, Long beforeId, int limit,
+                                    Consumer<TransactionView> sink) {
+        int count = 0;
+        try (Stream<TransactionView> rows = transactionRepository.streamAccountHistory(accountId, beforeTimestamp,
+                beforeId, PageRequest.of(0, limit))) {
+            for (TransactionView row : (Iterable<TransactionView>) rows::iterator) {
+                sink.accept(row);
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    @Transactional(readOnly = true)
     public List<Transaction> getAllTransactions() {
         return transactionRepository.findAll();
     }
@@ -0,0 +1,112 @@
+package com.banking.system.service;
+
+import com.banking.system.entity.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded, time-limited cache of user credentials keyed by username. Entries are
+ * immutable snapshots rather than entities, so they are safe to share across
+ * sessions. UserService evicts an entry whenever that user's role changes or the
+ * user is deleted. A load that overlaps an eviction is returned but not cached, and
+ * an eviction inside a transaction is repeated once it commits, so a row read
+ * before the change cannot be cached for the full TTL.
+ */
+@Service
+public class UserCache {
+    
+    @Value("${app.user-cache.max-size:10000}")
+    private int maxSize;
+    
+    @Value("${app.user-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+    
+    private final Map<String, CachedUser> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedUser> eldest) {
+            return size() > maxSize;
+        }
+    };
+    
+    // Bumped by every eviction; guarded by entries
+    private long generation;
+    
+    public Optional<CachedUser> get(String username, Function<String, Optional<User>> loader) {
+        long now = System.currentTimeMillis();
+        long loadGeneration;
+        synchronized (entries) {
+            CachedUser cached = entries.get(username);
+            if (cached != null && cached.expiresAt > now) {
+                return Optional.of(cached);
+            }
+            loadGeneration = generation;
+        }
+        
+        // Load outside the lock; a concurrent miss for the same name only costs a duplicate query
+        Optional<CachedUser> loaded = loader.apply(username)
+                .map(user -> new CachedUser(user.getId(), user.getUsername(), user.getPassword(), user.getRole(),
+                        now + ttlSeconds * 1000));
+        loaded.ifPresent(user -> {
+            synchronized (entries) {
+                // An eviction since the load began may mean this row is already out of date
+                if (generation == loadGeneration) {
+                    entries.put(username, user);
+                }
+            }
+        });
+        return loaded;
+    }
+    
+    public void evict(String username) {
+        remove(username);
+        // Readers still see the old row until the change commits; drop anything they cached meanwhile
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(username);
+                }
+            });
+        }
+    }
+    
+    private void remove(String username) {
+        synchronized (entries) {
+            entries.remove(username);
+            generation++;
+        }
+    }
+    
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+    
+    public static final class CachedUser {
+        private final Long id;
+        private final String username;
+        private final String password;
+        private final User.Role role;
+        private final long expiresAt;
+        
+        private CachedUser(Long id, String username, String password, User.Role role, long expiresAt) {
+            this.id = id;
+            this.username = username;
+            this.password = password;
+            this.role = role;
+            this.expiresAt = expiresAt;
+        }
+        
+        public Long getId() { return id; }
+        public String getUsername() { return username; }
+        public String getPassword() { return password; }
+        public User.Role getRole() { return role; }
+    }
+}
@@ -0,0 +1,299 @@
+package com.banking.system.service;
+
+import com.banking.system.dto.OnboardingResult;
+import com.banking.system.entity.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Creates users, each with a first account, from a CSV file of
+ * {@code username,password} lines (optional header).
+ *
+ * The file is read line by line and handled in chunks: usernames are checked
+ * against the database with one IN query per thousand names, the passwords of the
+ * remaining lines are hashed in parallel on a work-stealing pool (hashing is what
+ * limits a single-threaded migration), then users and accounts go in as JDBC
+ * batches in one database transaction per chunk. A report line is written for
+ * every input line once its chunk has committed.
+ */
+@Service
+public class UserOnboardingService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(UserOnboardingService.class);
+    
+    private static final String INSERT_USER_SQL = "INSERT INTO users (username, password, role) VALUES (?, ?, ?)";
+    private static final String INSERT_ACCOUNT_SQL = "INSERT INTO accounts (account_number, balance, user_id) VALUES (?, ?, ?)";
+    private static final int BATCH_SIZE = 1000;
+    private static final int IN_LIST_SIZE = 1000;
+    private static final int MAX_USERNAME_LENGTH = 255;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    
+    @Autowired
+    private AccountNumberAllocator accountNumberAllocator;
+    
+    @Autowired
+    private DashboardStatsService dashboardStats;
+    
+    @Autowired
+    private CacheInvalidator cacheInvalidator;
+    
+    @Value("${app.onboarding.chunk-size:5000}")
+    private int chunkSize;
+    
+    // 0 means one thread per core
+    @Value("${app.onboarding.hash-threads:0}")
+    private int hashThreads;
+    
+    private TransactionTemplate transactionTemplate;
+    private ForkJoinPool hashPool;
+    
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        hashPool = new ForkJoinPool(hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors());
+    }
+    
+    @PreDestroy
+    public void stop() {
+        hashPool.shutdownNow();
+    }
+    
+    public OnboardingResult onboard(InputStream input, Writer report, boolean rejectedOnly)
+            throws IOException, InterruptedException {
+        long start = System.currentTimeMillis();
+        Onboarding run = new Onboarding(report, rejectedOnly);
+        report.write("line,status,username,account,message\n");
+        
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 1 << 16);
+        List<Entry> chunk = new ArrayList<>(chunkSize);
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (lineNumber == 1 && isHeader(line))) {
+                continue;
+            }
+            chunk.add(run.parse(lineNumber, line));
+            if (chunk.size() == chunkSize) {
+                run.process(chunk);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            run.process(chunk);
+        }
+        report.flush();
+        
+        OnboardingResult result = new OnboardingResult(run.created + run.rejected, run.created, run.rejected,
+                System.currentTimeMillis() - start);
+        logger.info("Onboarded {} users ({} rejected) in {} ms, {} users/s", result.getCreated(), result.getRejected(),
+                result.getElapsedMillis(), String.format("%.0f", result.getUsersPerSecond()));
+        return result;
+    }
+    
+    private static boolean isHeader(String line) {
+        String lower = line.toLowerCase();
+        return lower.contains("username") && lower.contains("password");
+    }
+    
+    private final class Onboarding {
+        private final Writer report;
+        private final boolean rejectedOnly;
+        // Usernames already taken by an earlier line of this file
+        private final Set<String> seen = new HashSet<>();
+        private long created;
+        private long rejected;
+        
+        private Onboarding(Writer report, boolean rejectedOnly) {
+            this.report = report;
+            this.rejectedOnly = rejectedOnly;
+        }
+        
+        private Entry parse(long lineNumber, String line) {
+            Entry entry = new Entry(lineNumber);
+            int comma = line.indexOf(',');
+            if (comma < 0) {
+                entry.error = "Expected 2 fields";
+                return entry;
+            }
+            entry.username = line.substring(0, comma).trim();
+            entry.password = line.substring(comma + 1);
+            if (entry.username.isEmpty()) {
+                entry.error = "Username is required";
+            } else if (entry.username.length() > MAX_USERNAME_LENGTH) {
+                entry.error = "Username is too long";
+            } else if (entry.password.isBlank()) {
+                entry.error = "Password is required";
+            } else if (!seen.add(entry.username.toLowerCase())) {
+                entry.error = "Duplicate username in file";
+            }
+            return entry;
+        }
+        
+        private void process(List<Entry> chunk) throws IOException, InterruptedException {
+            rejectExisting(chunk);
+            List<Entry> valid = new ArrayList<>(chunk.size());
+            for (Entry entry : chunk) {
+                if (entry.error == null) {
+                    valid.add(entry);
+                }
+            }
+            
+            try {
+                hashPool.submit(() -> valid.parallelStream()
+                        .forEach(entry -> entry.hash = passwordEncoder.encode(entry.password))).get();
+                if (!valid.isEmpty()) {
+                    transactionTemplate.executeWithoutResult(status -> insert(valid));
+                }
+            } catch (ExecutionException | RuntimeException e) {
+                String message = e instanceof ExecutionException ? e.getCause().getMessage() : e.getMessage();
+                for (Entry entry : valid) {
+                    entry.accountNumber = null;
+                    entry.error = "Not created: " + message;
+                }
+            }
+            
+            for (Entry entry : chunk) {
+                entry.password = null;
+                if (entry.error == null) {
+                    created++;
+                } else {
+                    rejected++;
+                }
+                if (entry.error != null || !rejectedOnly) {
+                    entry.writeTo(report);
+                }
+            }
+        }
+        
+        private void rejectExisting(List<Entry> chunk) {
+            List<String> usernames = new ArrayList<>();
+            for (Entry entry : chunk) {
+                if (entry.error == null) {
+                    usernames.add(entry.username);
+                }
+            }
+            Set<String> existing = new HashSet<>();
+            for (List<String> names : partition(usernames)) {
+                jdbcTemplate.query("SELECT username FROM users WHERE username IN (" + placeholders(names.size()) + ")",
+                        rs -> { existing.add(rs.getString(1).toLowerCase()); },
+                        names.toArray());
+            }
+            for (Entry entry : chunk) {
+                if (entry.error == null && existing.contains(entry.username.toLowerCase())) {
+                    entry.error = "Username already exists";
+                }
+            }
+        }
+        
+        private void insert(List<Entry> entries) {
+            // Reserved before the inserts, so no new rows are locked while the range is reserved
+            String[] accountNumbers = accountNumberAllocator.allocate(entries.size());
+            for (int i = 0; i < entries.size(); i++) {
+                entries.get(i).accountNumber = accountNumbers[i];
+            }
+            
+            // A cached empty findByUsername result would keep a new user from signing in
+            cacheInvalidator.tablesChanging("users", "accounts");
+            jdbcTemplate.batchUpdate(INSERT_USER_SQL, entries, BATCH_SIZE, (ps, entry) -> {
+                ps.setString(1, entry.username);
+                ps.setString(2, entry.hash);
+                ps.setString(3, User.Role.USER.name());
+            });
+            
+            // Batched inserts do not return the generated keys, so read them back by name
+            Map<String, Long> userIds = new HashMap<>();
+            for (List<Entry> part : partition(entries)) {
+                jdbcTemplate.query("SELECT id, username FROM users WHERE username IN (" + placeholders(part.size()) + ")",
+                        rs -> { userIds.put(rs.getString(2).toLowerCase(), rs.getLong(1)); },
+                        part.stream().map(entry -> entry.username).toArray());
+            }
+            
+            jdbcTemplate.batchUpdate(INSERT_ACCOUNT_SQL, entries, BATCH_SIZE, (ps, entry) -> {
+                ps.setString(1, entry.accountNumber);
+                ps.setBigDecimal(2, BigDecimal.ZERO);
+                ps.setLong(3, userIds.get(entry.username.toLowerCase()));
+            });
+            dashboardStats.usersCreated(entries.size(), entries.size());
+        }
+    }
+    
+    private static <T> List<List<T>> partition(List<T> values) {
+        if (values.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<List<T>> parts = new ArrayList<>();
+        for (int i = 0; i < values.size(); i += IN_LIST_SIZE) {
+            parts.add(values.subList(i, Math.min(i + IN_LIST_SIZE, values.size())));
+        }
+        return parts;
+    }
+    
+    private static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+    
+    private static final class Entry {
+        private final long lineNumber;
+        private String username = "";
+        private String password;
+        private String hash;
+        private String accountNumber;
+        private String error;
+        
+        private Entry(long lineNumber) {
+            this.lineNumber = lineNumber;
+        }
+        
+        private void writeTo(Writer writer) throws IOException {
+            writer.write(Long.toString(lineNumber));
+            writer.write(error == null ? ",CREATED," : ",REJECTED,");
+            writer.write(csv(username));
+            writer.write(',');
+            writer.write(accountNumber == null ? "" : accountNumber);
+            writer.write(',');
+            writer.write(error == null ? "" : csv(error));
+            writer.write('\n');
+        }
+        
+        private static String csv(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+}
@@ -1,20 +1,29 @@
 package com.banking.system.service;
 
+import com.banking.system.config.BankUserDetails;
+import com.banking.system.dto.KeysetPage;
+import com.banking.system.dto.UserSummary;
 import com.banking.system.entity.User;
 import com.banking.system.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.util.List;
 
 @Service
 @Transactional
+@Timed(value = "bank.service", histogram = true, percentiles = {0.5, 0.99, 0.999})
 public class UserService {
     
+    private static final Logger logger = LoggerFactory.getLogger(UserService.class);
+    
     @Autowired
     private UserRepository userRepository;
     
@@ -24,139 +33,112 @@ public class UserService {
     @Autowired
     private LogService logService;
     
+    @Autowired
+    private UserCache userCache;
+    
+    @Autowired
+    private DashboardStatsService dashboardStats;
+    
+    @Autowired
+    private OptimisticRetry optimisticRetry;
+    
     public User createUser(String username, String password, User.Role role) {
         if (userRepository.existsByUsername(username)) {
-            System.out.println("ERROR: Username already exists: " + username);
+            logger.debug("Username already exists: {}", username);
             throw new RuntimeException("Username already exists");
         }
         
-        System.out.println("=== UserService.createUser() called ===");
-        System.out.println("Username: " + username);
-        System.out.println("Raw password: " + password);
-        System.out.println("Role: " + role);
-        
         String encodedPassword = passwordEncoder.encode(password);
-        System.out.println("Encoded password: " + encodedPassword);
-        System.out.println("Is BCrypt hash (starts with $2a$)? " + encodedPassword.startsWith("$2a$"));
-        System.out.println("Password length: " + encodedPassword.length());
-        
         User user = new User(username, encodedPassword, role);
         User savedUser = userRepository.save(user);
+        dashboardStats.userCreated();
         
-        System.out.println("User saved successfully!");
-        System.out.println("User ID: " + savedUser.getId());
-        System.out.println("=== UserService.createUser() finished ===\n");
-        
+        logger.info("Created user {} (id={}, role={})", savedUser.getUsername(), savedUser.getId(), role);
         return savedUser;
     }
     
+    @Transactional(readOnly = true)
     public List<User> getAllUsers() {
         List<User> users = userRepository.findAll();
-        System.out.println("=== UserService.getAllUsers() ===");
-        System.out.println("Found " + users.size() + " users");
-        for (User user : users) {
-            System.out.println("  - " + user.getUsername() + " (ID: " + user.getId() + 
-                             ", Role: " + user.getRole() + 
-                             ", Password hash: " + user.getPassword().substring(0, Math.min(20, user.getPassword().length())) + "...)");
-        }
+        logger.debug("Loaded {} users", users.size());
         return users;
     }
     
+    @Transactional(readOnly = true)
+    public KeysetPage<UserSummary> getUserSummaries(Long afterId, int size) {
+        List<UserSummary> rows = userRepository.findSummariesAfter(afterId == null ? 0L : afterId,
+                PageRequest.of(0, size + 1));
+        return KeysetPage.of(rows, size, UserSummary::getId);
+    }
+    
     public User getUserById(Long id) {
         return userRepository.findById(id)
-                .orElseThrow(() -> {
-                    System.out.println("ERROR: User not found with ID: " + id);
-                    return new RuntimeException("User not found");
-                });
+                .orElseThrow(() -> new RuntimeException("User not found"));
     }
     
     public User getUserByUsername(String username) {
-        System.out.println("=== UserService.getUserByUsername() ===");
-        System.out.println("Looking for user: " + username);
-        
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> {
-                    System.out.println("ERROR: User not found: " + username);
-                    return new RuntimeException("User not found");
-                });
-        
-        System.out.println("Found user: " + user.getUsername());
-        System.out.println("User ID: " + user.getId());
-        System.out.println("User role: " + user.getRole());
-        System.out.println("Password hash: " + user.getPassword());
-        System.out.println("Is BCrypt hash? " + user.getPassword().startsWith("$2a$"));
-        
-        return user;
+        return userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
     }
     
+    // Deleting the user deletes its accounts, each checked against the version read with the balances
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void deleteUser(Long id) {
-        System.out.println("=== UserService.deleteUser() ===");
-        System.out.println("Attempting to delete user ID: " + id);
-        
-        User user = getUserById(id);
-        
-        // Don't allow deleting admin users
-        if (user.getRole() == User.Role.ADMIN) {
-            System.out.println("ERROR: Cannot delete ADMIN user: " + user.getUsername());
-            throw new RuntimeException("Cannot delete ADMIN users");
-        }
-        
-        // Check if user has accounts with balance > 0
-        boolean hasBalance = user.getAccounts().stream()
-            .anyMatch(account -> account.getBalance().compareTo(BigDecimal.ZERO) > 0);
-        
-        if (hasBalance) {
-            System.out.println("ERROR: User has account balance > 0: " + user.getUsername());
-            throw new RuntimeException("Cannot delete user with account balance > 0");
-        }
+        User user = optimisticRetry.run(null, () -> {
+            User found = userRepository.findWithAccountsById(id)
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+            
+            // Don't allow deleting admin users
+            if (found.getRole() == User.Role.ADMIN) {
+                logger.warn("Refused to delete ADMIN user {}", found.getUsername());
+                throw new RuntimeException("Cannot delete ADMIN users");
+            }
+            
+            // Check if user has accounts with balance > 0
+            boolean hasBalance = found.getAccounts().stream()
+                .anyMatch(account -> account.getBalance().compareTo(BigDecimal.ZERO) > 0);
+            
+            if (hasBalance) {
+                logger.debug("Refused to delete user {} with account balance > 0", found.getUsername());
+                throw new RuntimeException("Cannot delete user with account balance > 0");
+            }
+            
+            userRepository.delete(found);
+            return found;
+        });
         
-        userRepository.deleteById(id);
-        System.out.println("User deleted successfully: " + user.getUsername());
+        userCache.evict(user.getUsername());
+        dashboardStats.userDeleted(user.getAccounts().size());
+        logger.info("Deleted user {} (id={})", user.getUsername(), id);
         
         // Log the action
         try {
-            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-            if (auth != null && auth.isAuthenticated()) {
-                String adminUsername = auth.getName();
-                User admin = getUserByUsername(adminUsername);
-                logService.createLog("Admin " + adminUsername + " deleted user: " + user.getUsername(), admin);
-                System.out.println("Log created for deletion");
-            }
+            BankUserDetails admin = BankUserDetails.current();
+            logService.createLog("Admin " + admin.getUsername() + " deleted user: " + user.getUsername(), admin.getId());
         } catch (Exception e) {
-            System.out.println("Warning: Could not create log entry: " + e.getMessage());
+            logger.warn("Could not create audit entry for deletion of user {}: {}", user.getUsername(), e.getMessage());
         }
     }
     
     public void updateUserRole(Long id, User.Role role) {
-        System.out.println("=== UserService.updateUserRole() ===");
-        System.out.println("Updating user ID " + id + " to role: " + role);
-        
         User user = getUserById(id);
         user.setRole(role);
         userRepository.save(user);
+        userCache.evict(user.getUsername());
         
-        System.out.println("User role updated successfully");
+        logger.info("Updated role of user {} (id={}) to {}", user.getUsername(), id, role);
     }
     
-    // Debug method to check all users' passwords
+    // Lists users and whether their stored password is rehashed on the next login; never logs the hash itself
     public void debugAllUsers() {
-        System.out.println("=== DEBUG: Checking all users ===");
+        if (!logger.isDebugEnabled()) {
+            return;
+        }
         List<User> users = userRepository.findAll();
         for (User user : users) {
-            System.out.println("User: " + user.getUsername() + 
-                             " | ID: " + user.getId() + 
-                             " | Role: " + user.getRole() + 
-                             " | Password: " + user.getPassword() +
-                             " | Is BCrypt: " + user.getPassword().startsWith("$2a$"));
-            
-            // Try to verify password
-            if (user.getPassword().startsWith("$2a$")) {
-                System.out.println("  ✓ Password is BCrypt encoded");
-            } else {
-                System.out.println("  ⚠ Password is NOT BCrypt encoded!");
-                System.out.println("  Password starts with: " + user.getPassword().substring(0, Math.min(10, user.getPassword().length())));
-            }
+            logger.debug("User {} (id={}, role={}) needs rehash: {}",
+                    user.getUsername(), user.getId(), user.getRole(), passwordEncoder.upgradeEncoding(user.getPassword()));
         }
-        System.out.println("Total users: " + users.size());
+        logger.debug("Total users: {}", users.size());
     }
 }
@@ -0,0 +1,116 @@
+package com.banking.system.config;
+
+import com.banking.system.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CachingAuthenticationProviderTest {
+
+    private final BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(4);
+    private final Map<String, BankUserDetails> users = new ConcurrentHashMap<>();
+    private final AtomicInteger passwordChecks = new AtomicInteger();
+    private AuthenticationProvider passwordCheck;
+
+    private final UserDetailsService userDetailsService = username -> {
+        BankUserDetails user = users.get(username);
+        if (user == null) {
+            throw new UsernameNotFoundException("User not found");
+        }
+        // A fresh copy each time, as the real service builds one per lookup
+        return new BankUserDetails(user.getId(), user.getUsername(), user.getPassword(), user.getRole());
+    };
+
+    @BeforeEach
+    void setUp() {
+        DaoAuthenticationProvider dao = new DaoAuthenticationProvider();
+        dao.setPasswordEncoder(encoder);
+        dao.setUserDetailsService(userDetailsService);
+        passwordCheck = new AuthenticationProvider() {
+            @Override
+            public Authentication authenticate(Authentication authentication) {
+                passwordChecks.incrementAndGet();
+                return dao.authenticate(authentication);
+            }
+
+            @Override
+            public boolean supports(Class<?> authentication) {
+                return dao.supports(authentication);
+            }
+        };
+        users.put("alice", new BankUserDetails(1L, "alice", encoder.encode("secret"), User.Role.USER));
+    }
+
+    @Test
+    void repeatedCallsCheckThePasswordOnce() {
+        CachingAuthenticationProvider provider = new CachingAuthenticationProvider(passwordCheck, userDetailsService, 100, 60);
+
+        for (int i = 0; i < 10; i++) {
+            Authentication result = provider.authenticate(login("alice", "secret"));
+            assertThat(result.isAuthenticated()).isTrue();
+            assertThat(((BankUserDetails) result.getPrincipal()).getId()).isEqualTo(1L);
+        }
+        assertThat(passwordChecks).hasValue(1);
+    }
+
+    @Test
+    void wrongPasswordsAreCheckedEveryTime() {
+        CachingAuthenticationProvider provider = new CachingAuthenticationProvider(passwordCheck, userDetailsService, 100, 60);
+        provider.authenticate(login("alice", "secret"));
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> provider.authenticate(login("alice", "wrong")))
+                    .isInstanceOf(BadCredentialsException.class);
+        }
+        assertThat(passwordChecks).hasValue(4);
+        assertThat(provider.size()).isEqualTo(1);
+    }
+
+    @Test
+    void passwordChangeRoleChangeAndDeleteApplyAtOnce() {
+        CachingAuthenticationProvider provider = new CachingAuthenticationProvider(passwordCheck, userDetailsService, 100, 60);
+        provider.authenticate(login("alice", "secret"));
+
+        users.put("alice", new BankUserDetails(1L, "alice", users.get("alice").getPassword(), User.Role.ADMIN));
+        assertThat(provider.authenticate(login("alice", "secret")).getAuthorities())
+                .extracting(Object::toString).containsExactly("ROLE_ADMIN");
+        assertThat(passwordChecks).hasValue(1);
+
+        users.put("alice", new BankUserDetails(1L, "alice", encoder.encode("changed"), User.Role.USER));
+        assertThatThrownBy(() -> provider.authenticate(login("alice", "secret")))
+                .isInstanceOf(BadCredentialsException.class);
+        assertThat(passwordChecks).hasValue(2);
+
+        provider.authenticate(login("alice", "changed"));
+        users.remove("alice");
+        assertThatThrownBy(() -> provider.authenticate(login("alice", "changed")))
+                .isInstanceOf(BadCredentialsException.class);
+    }
+
+    @Test
+    void zeroTtlChecksEveryCall() {
+        CachingAuthenticationProvider provider = new CachingAuthenticationProvider(passwordCheck, userDetailsService, 100, 0);
+
+        for (int i = 0; i < 3; i++) {
+            provider.authenticate(login("alice", "secret"));
+        }
+        assertThat(passwordChecks).hasValue(3);
+    }
+
+    private static UsernamePasswordAuthenticationToken login(String username, String password) {
+        return UsernamePasswordAuthenticationToken.unauthenticated(username, password);
+    }
+}
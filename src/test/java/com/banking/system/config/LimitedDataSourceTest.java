@@ -0,0 +1,102 @@
+package com.banking.system.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.FutureTask;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The database limiter on its own, over a plain H2 data source: a thread that
+ * already holds a connection gets a nested one from the reserved permits while
+ * other threads hold every ordinary permit, and a caller that finds no permit
+ * gives up after the acquire timeout instead of waiting for the pool.
+ */
+class LimitedDataSourceTest {
+
+    private static final int POOL_SIZE = 3;
+    private static final int RESERVED = 1;
+    private static final long TIMEOUT_MS = 200;
+
+    private final LimitedDataSource dataSource = new LimitedDataSource(
+            new DriverManagerDataSource("jdbc:h2:mem:limited-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", ""),
+            POOL_SIZE, RESERVED, TIMEOUT_MS);
+    private final List<Connection> open = new ArrayList<>();
+
+    @AfterEach
+    void closeAll() throws Exception {
+        for (Connection connection : open) {
+            connection.close();
+        }
+    }
+
+    @Test
+    void nestedConnectionUsesAReservedPermit() throws Exception {
+        Connection outer = take();
+        takeOnAnotherThread();
+        assertThat(dataSource.getAvailablePermits()).isZero();
+
+        // A REQUIRES_NEW transaction inside the outer one
+        Connection nested = take();
+        assertThat(nested.isValid(1)).isTrue();
+        assertThat(dataSource.getAvailableReservedPermits()).isZero();
+
+        nested.close();
+        assertThat(dataSource.getAvailableReservedPermits()).isEqualTo(RESERVED);
+        // Closing twice returns the permit once
+        nested.close();
+        assertThat(dataSource.getAvailableReservedPermits()).isEqualTo(RESERVED);
+
+        outer.close();
+        assertThat(dataSource.getAvailablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void callerWithoutAPermitTimesOut() throws Exception {
+        for (int i = 0; i < POOL_SIZE - RESERVED; i++) {
+            takeOnAnotherThread();
+        }
+
+        long start = System.nanoTime();
+        assertThatThrownBy(dataSource::getConnection)
+                .isInstanceOf(SQLTransientConnectionException.class)
+                .hasMessageStartingWith("No database permit available after " + TIMEOUT_MS + "ms");
+        assertThat((System.nanoTime() - start) / 1_000_000).isGreaterThanOrEqualTo(TIMEOUT_MS);
+        // Reserved permits are only for threads that already hold a connection
+        assertThat(dataSource.getAvailableReservedPermits()).isEqualTo(RESERVED);
+
+        open.remove(0).close();
+        take();
+    }
+
+    @Test
+    void nestedCallerTimesOutWhenTheReservedPermitsAreTaken() throws Exception {
+        take();
+        take();
+
+        assertThatThrownBy(dataSource::getConnection)
+                .isInstanceOf(SQLTransientConnectionException.class)
+                .hasMessageStartingWith("No reserved database permit available");
+        assertThat(dataSource.getAvailablePermits()).isEqualTo(1);
+    }
+
+    private Connection take() throws Exception {
+        Connection connection = dataSource.getConnection();
+        open.add(connection);
+        return connection;
+    }
+
+    // A new thread each time; the limiter treats a thread that already holds a connection as nested
+    private void takeOnAnotherThread() throws Exception {
+        FutureTask<Connection> request = new FutureTask<>(dataSource::getConnection);
+        new Thread(request).start();
+        open.add(request.get());
+    }
+}
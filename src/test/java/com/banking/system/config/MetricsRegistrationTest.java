@@ -0,0 +1,73 @@
+package com.banking.system.config;
+
+import com.banking.system.entity.User;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * After some traffic through the observation and query-count filters, a Prometheus
+ * scrape must carry every series the dashboards rely on.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+@ActiveProfiles("test")
+class MetricsRegistrationTest {
+
+    private static final List<String> EXPECTED_SERIES = List.of(
+            "http_server_requests_seconds{",
+            "bank_service_seconds{",
+            "hikaricp_connections_acquire_seconds{",
+            "bank_request_queries_count{",
+            "bank_transactions_rejected_total{",
+            "bank_audit_queue_depth{",
+            "bank_audit_journal_forces_total{",
+            "bank_idempotency_requests_total{",
+            "bank_ledger_commits_total{",
+            "bank_passwords_verify_queue{");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PrometheusMeterRegistry registry;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void scrapeHasTheDashboardSeries() throws Exception {
+        jdbc.update("INSERT INTO users (username, password, role) VALUES ('metrics', 'x', 'USER')");
+        Long userId = jdbc.queryForObject("SELECT id FROM users WHERE username = 'metrics'", Long.class);
+        jdbc.update("INSERT INTO accounts (account_number, balance, user_id) VALUES ('METRICS-0', 10.00, ?)", userId);
+        Long accountId = jdbc.queryForObject("SELECT id FROM accounts WHERE account_number = 'METRICS-0'", Long.class);
+        BankUserDetails principal = new BankUserDetails(userId, "metrics", "", User.Role.USER);
+
+        mockMvc.perform(get("/user/dashboard").with(user(principal)))
+                .andExpect(status().isOk());
+        // More than the balance, so it is rejected
+        mockMvc.perform(post("/transactions").with(user(principal)).with(csrf())
+                .param("accountId", accountId.toString())
+                .param("amount", "20.00")
+                .param("type", "WITHDRAW"));
+
+        String scrape = registry.scrape();
+        assertThat(EXPECTED_SERIES).allSatisfy(series -> assertThat(scrape).contains(series));
+        assertThat(registry.get("bank.transactions.rejected").tag("path", "service").counter().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,91 @@
+package com.banking.system.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
+import static org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers.authenticated;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+
+/**
+ * Logging in with a hash in another algorithm or cost stores it again in the
+ * configured setting, and the new hash keeps working.
+ */
+@SpringBootTest(properties = {
+        "app.passwords.algorithm=bcrypt",
+        "app.passwords.bcrypt-strength=" + PasswordRehashTest.STRENGTH
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PasswordRehashTest {
+
+    static final int STRENGTH = 5;
+    private static final String PASSWORD = "correct horse";
+    private static final String CONFIGURED = String.format("{bcrypt}$2a$%02d$", STRENGTH);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Test
+    void unprefixedLowCostBcryptIsRehashedOnLogin() throws Exception {
+        String username = insertUser(new BCryptPasswordEncoder(4).encode(PASSWORD));
+
+        login(username);
+
+        assertThat(storedHash(username)).startsWith(CONFIGURED);
+        login(username);
+    }
+
+    @Test
+    void pbkdf2IsRehashedOnLogin() throws Exception {
+        String username = insertUser("{pbkdf2}" + Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8().encode(PASSWORD));
+
+        login(username);
+
+        assertThat(storedHash(username)).startsWith(CONFIGURED);
+        login(username);
+    }
+
+    @Test
+    void hashInTheConfiguredSettingIsLeftAlone() throws Exception {
+        String hash = passwordEncoder.encode(PASSWORD);
+        assertThat(hash).startsWith(CONFIGURED);
+        String username = insertUser(hash);
+
+        login(username);
+
+        assertThat(storedHash(username)).isEqualTo(hash);
+    }
+
+    private void login(String username) throws Exception {
+        mockMvc.perform(formLogin("/login").user(username).password(PASSWORD))
+                .andExpect(authenticated().withUsername(username))
+                .andExpect(redirectedUrl("/dashboard"));
+    }
+
+    private String insertUser(String hash) {
+        String username = "rehash-" + UUID.randomUUID();
+        jdbc.update("INSERT INTO users (username, password, role) VALUES (?, ?, 'USER')", username, hash);
+        return username;
+    }
+
+    private String storedHash(String username) {
+        return jdbc.queryForObject("SELECT password FROM users WHERE username = ?", String.class, username);
+    }
+}
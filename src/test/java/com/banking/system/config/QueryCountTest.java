@@ -0,0 +1,213 @@
+package com.banking.system.config;
+
+import com.banking.system.entity.Account;
+import com.banking.system.entity.Log;
+import com.banking.system.entity.Transaction;
+import com.banking.system.entity.User;
+import com.banking.system.service.AccountService;
+import com.banking.system.service.LogService;
+import com.banking.system.service.TransactionIdAllocator;
+import com.banking.system.service.TransactionService;
+import com.banking.system.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * SQL statements per page, JSON endpoint and service entity list, counted before and
+ * after adding users, accounts, transactions and logs. No count may grow with the
+ * data, and walking an entity list's associations the way a template does must not
+ * load anything lazily. The second-level cache is off so it cannot hide per-row loads.
+ * Log export and statement batches read in fixed-size chunks and are left out.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false"
+})
+@ActiveProfiles("test")
+class QueryCountTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private QueryCounter queryCounter;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private TransactionIdAllocator ids;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private LogService logService;
+
+    private MockMvc mockMvc;
+    private Long userId;
+    private Long accountId;
+    private BankUserDetails owner;
+    private BankUserDetails admin;
+
+    @Test
+    void statementCountsDoNotGrowWithTheData() throws Exception {
+        // Without QueryCountFilter, which would reset the counter for each request
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+        List<Long> users = insertUsers("counted", 10);
+        userId = users.get(0);
+        for (Long user : users) {
+            insertAccount(user, "COUNTED-" + user + "-0");
+        }
+        accountId = jdbc.queryForObject("SELECT id FROM accounts WHERE user_id = ?", Long.class, userId);
+        insertTransactions(List.of(accountId), 5);
+        insertLogs(users, 2);
+        String username = jdbc.queryForObject("SELECT username FROM users WHERE id = ?", String.class, userId);
+        owner = new BankUserDetails(userId, username, "", User.Role.USER);
+        admin = new BankUserDetails(userId, "admin", "", User.Role.ADMIN);
+
+        Map<String, Integer> before = countAll();
+        grow();
+        Map<String, Integer> after = countAll();
+
+        assertThat(after).as("statements before %s", before).allSatisfy((name, count) ->
+                assertThat(count).as(name).isLessThanOrEqualTo(before.get(name)));
+    }
+
+    private Map<String, Integer> countAll() throws Exception {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        String history = "/api/v1/accounts/" + accountId;
+        for (String url : List.of("/user/dashboard", "/transactions", "/api/v1/accounts", history,
+                history + "/transactions", "/user/statements?accountId=" + accountId + "&month=" + YearMonth.now())) {
+            counts.put("GET " + url, countPage(url, owner));
+        }
+        for (String url : List.of("/admin/dashboard", "/admin/logs", "/admin/logs?username=" + owner.getUsername())) {
+            counts.put("GET " + url, countPage(url, admin));
+        }
+
+        // Walked after the service returns: an association the fetch plan missed fails here.
+        // Collected rather than counted, since count() may skip the mapping altogether
+        counts.put("AccountService.getAllAccounts", countList(() -> accountService.getAllAccounts().stream()
+                .map(a -> a.getUser().getUsername()).toList()));
+        counts.put("UserService.getAllUsers", countList(() -> userService.getAllUsers().stream()
+                .map(u -> u.getAccounts().size()).toList()));
+        counts.put("TransactionService.getAllTransactions", countList(() -> transactionService.getAllTransactions()
+                .stream().map(t -> t.getAccount().getAccountNumber()).toList()));
+        counts.put("TransactionService.getTransactionsByUserId", countList(() -> transactionService
+                .getTransactionsByUserId(userId).stream().map(Transaction::getAccount).map(Account::getAccountNumber).toList()));
+        counts.put("TransactionService.getTransactionsByAccountId", countList(() -> transactionService
+                .getTransactionsByAccountId(accountId).stream().map(t -> t.getAccount().getAccountNumber()).toList()));
+        counts.put("LogService.getAllLogs", countList(() -> logService.getAllLogs().stream()
+                .map(Log::getUser).map(User::getUsername).toList()));
+        counts.put("LogService.getLogsByUserId", countList(() -> logService.getLogsByUserId(userId).stream()
+                .map(l -> l.getUser().getUsername()).toList()));
+        return counts;
+    }
+
+    private int countPage(String url, BankUserDetails principal) throws Exception {
+        queryCounter.start();
+        MockHttpServletResponse response;
+        try {
+            response = mockMvc.perform(get(url).with(user(principal))).andReturn().getResponse();
+        } catch (Exception e) {
+            queryCounter.stop();
+            throw e;
+        }
+        int queries = queryCounter.stop();
+        assertThat(response.getStatus()).as("GET " + url).isEqualTo(200);
+        return queries;
+    }
+
+    private int countList(Callable<List<?>> walk) throws Exception {
+        queryCounter.start();
+        List<?> walked;
+        try {
+            walked = walk.call();
+        } catch (Exception e) {
+            queryCounter.stop();
+            throw e;
+        }
+        int queries = queryCounter.stop();
+        assertThat(walked).as("entity list").isNotEmpty();
+        return queries;
+    }
+
+    // More of everything: accounts and history for the user whose pages are counted, other users, logs
+    private void grow() {
+        for (int a = 1; a <= 4; a++) {
+            insertAccount(userId, "COUNTED-" + userId + "-" + a);
+        }
+        List<Long> newUsers = insertUsers("grown", 50);
+        for (Long user : newUsers) {
+            insertAccount(user, "COUNTED-" + user + "-0");
+        }
+        insertTransactions(jdbc.queryForList("SELECT id FROM accounts WHERE user_id = ?", Long.class, userId), 30);
+
+        List<Long> everyone = new ArrayList<>(newUsers);
+        everyone.add(userId);
+        insertLogs(everyone, 20);
+    }
+
+    private List<Long> insertUsers(String prefix, int count) {
+        for (int u = 0; u < count; u++) {
+            jdbc.update("INSERT INTO users (username, password, role) VALUES (?, 'x', 'USER')", prefix + u);
+        }
+        return jdbc.queryForList("SELECT id FROM users WHERE username LIKE ? ORDER BY id", Long.class, prefix + "%");
+    }
+
+    private void insertAccount(Long user, String accountNumber) {
+        jdbc.update("INSERT INTO accounts (account_number, balance, user_id) VALUES (?, ?, ?)",
+                accountNumber, new BigDecimal("1000000.00"), user);
+    }
+
+    private void insertTransactions(List<Long> accounts, int perAccount) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = new ArrayList<>();
+        for (Long account : accounts) {
+            long[] block = ids.allocate(perAccount);
+            for (int t = 0; t < block.length; t++) {
+                rows.add(new Object[] {block[t], new BigDecimal("10.00"), t % 2 == 0 ? "DEPOSIT" : "WITHDRAW",
+                        Timestamp.valueOf(now.minusSeconds(t)), account});
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO transactions (id, amount, type, timestamp, account_id) VALUES (?, ?, ?, ?, ?)", rows);
+    }
+
+    private void insertLogs(List<Long> users, int perUser) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = new ArrayList<>();
+        for (Long user : users) {
+            for (int i = 0; i < perUser; i++) {
+                rows.add(new Object[] {"seeded action " + i, Timestamp.valueOf(now.minusSeconds(i)), user});
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO logs (action, timestamp, user_id) VALUES (?, ?, ?)", rows);
+    }
+}
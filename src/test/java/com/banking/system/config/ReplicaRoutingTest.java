@@ -0,0 +1,216 @@
+package com.banking.system.config;
+
+import com.banking.system.dto.AccountView;
+import com.banking.system.dto.TransactionRequest;
+import com.banking.system.entity.Transaction;
+import com.banking.system.entity.User;
+import com.banking.system.service.AccountService;
+import com.banking.system.service.TransactionPostingService;
+import com.banking.system.service.TransactionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import javax.sql.DataSource;
+import java.io.File;
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongPredicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Read-replica routing against two in-memory H2 databases. Nothing replicates
+ * between them by itself: the primary is copied to the replica with SCRIPT /
+ * RUNSCRIPT, and a background task copies the heartbeat row to stand in for a
+ * replica that keeps up. Balances tell which database served a read, since writes
+ * made after the copy only exist on the primary.
+ */
+@SpringBootTest(properties = {
+        "app.replica.enabled=true",
+        "app.replica.datasource.url=jdbc:h2:mem:replica-${random.uuid};MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "app.replica.datasource.username=sa",
+        "app.replica.datasource.password=",
+        "app.replica.max-lag-ms=" + ReplicaRoutingTest.MAX_LAG_MS,
+        "app.replica.heartbeat-ms=100"
+})
+@ActiveProfiles("test")
+class ReplicaRoutingTest {
+
+    static final long MAX_LAG_MS = 1000;
+    private static final BigDecimal SEEDED = new BigDecimal("1000.00");
+    private static final BigDecimal AMOUNT = new BigDecimal("100.00");
+
+    @Autowired
+    private ReplicaRouter router;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionPostingService postingService;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+    private ScheduledExecutorService replicator;
+    private volatile boolean replicating = true;
+
+    private BankUserDetails writer;
+    private BankUserDetails reader;
+    private Long accountId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        // Fresh users each time, so stickiness from an earlier test cannot leak in
+        writer = insertUser("writer");
+        reader = insertUser("reader");
+        accountId = accountService.createAccount(writer.getId()).getId();
+        primary.update("UPDATE accounts SET balance = ? WHERE id = ?", SEEDED, accountId);
+
+        copyToReplica();
+        replicator = Executors.newSingleThreadScheduledExecutor();
+        replicator.scheduleWithFixedDelay(() -> {
+            if (replicating) {
+                copyHeartbeat();
+            }
+        }, 0, 50, TimeUnit.MILLISECONDS);
+        awaitLag(lag -> lag < MAX_LAG_MS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        replicator.shutdownNow();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyReadsUseTheReplica() {
+        // Posted without a user, so nobody is sticky
+        transactionService.createTransaction(accountId, AMOUNT, Transaction.TransactionType.DEPOSIT);
+        long replicaReads = router.getReplicaReads();
+
+        assertThat(balanceAs(null)).isEqualByComparingTo(SEEDED);
+        assertThat(balanceAs(reader)).isEqualByComparingTo(SEEDED);
+        assertThat(router.getReplicaReads()).isEqualTo(replicaReads + 2);
+    }
+
+    @Test
+    void writerReadsItsOwnWriteFromThePrimary() {
+        post(writer);
+        long stickyReads = router.getStickyReads();
+
+        assertThat(balanceAs(writer)).as("writer's read").isEqualByComparingTo(SEEDED.add(AMOUNT));
+        assertThat(router.getStickyReads()).isEqualTo(stickyReads + 1);
+        assertThat(balanceAs(reader)).as("other user's read").isEqualByComparingTo(SEEDED);
+        assertThat(router.isSticky(writer.getId())).isTrue();
+        assertThat(router.isSticky(reader.getId())).isFalse();
+    }
+
+    @Test
+    void laggingReplicaIsBypassedUntilItCatchesUp() throws Exception {
+        post(writer);
+        BigDecimal posted = SEEDED.add(AMOUNT);
+
+        replicating = false;
+        awaitLag(lag -> lag > MAX_LAG_MS);
+        long lagReads = router.getLagReads();
+        assertThat(balanceAs(reader)).as("read while lagging").isEqualByComparingTo(posted);
+        assertThat(router.getLagReads()).isEqualTo(lagReads + 1);
+
+        copyToReplica();
+        replicating = true;
+        awaitLag(lag -> lag < MAX_LAG_MS);
+        long replicaReads = router.getReplicaReads();
+        assertThat(balanceAs(reader)).as("read after catching up").isEqualByComparingTo(posted);
+        assertThat(router.getReplicaReads()).isEqualTo(replicaReads + 1);
+    }
+
+    private void post(BankUserDetails user) {
+        signIn(user);
+        try {
+            TransactionRequest request = new TransactionRequest();
+            request.setAccountId(accountId);
+            request.setAmount(AMOUNT);
+            request.setType("DEPOSIT");
+            postingService.post(user.getId(), user.getUsername(), request);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private BigDecimal balanceAs(BankUserDetails user) {
+        if (user == null) {
+            SecurityContextHolder.clearContext();
+        } else {
+            signIn(user);
+        }
+        try {
+            return accountService.getAccountViews(writer.getId()).stream()
+                    .filter(a -> a.getId().equals(accountId))
+                    .map(AccountView::getBalance)
+                    .findFirst().orElseThrow();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private static void signIn(BankUserDetails user) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    private BankUserDetails insertUser(String prefix) {
+        String username = prefix + "-" + UUID.randomUUID();
+        primary.update("INSERT INTO users (username, password, role) VALUES (?, 'x', 'USER')", username);
+        Long id = primary.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, username);
+        return new BankUserDetails(id, username, "", User.Role.USER);
+    }
+
+    private void awaitLag(LongPredicate condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10 * MAX_LAG_MS;
+        while (!condition.test(router.getLagMillis())) {
+            assertThat(System.currentTimeMillis()).as("replica lag stuck at %d ms", router.getLagMillis())
+                    .isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    // A full copy of the primary, standing in for a replica that has caught up
+    private void copyToReplica() throws Exception {
+        File script = File.createTempFile("replica-", ".sql");
+        try {
+            primary.execute("SCRIPT TO '" + script.getAbsolutePath() + "'");
+            replica.execute("DROP ALL OBJECTS");
+            replica.execute("RUNSCRIPT FROM '" + script.getAbsolutePath() + "'");
+        } finally {
+            script.delete();
+        }
+    }
+
+    private void copyHeartbeat() {
+        Long beat = primary.queryForObject("SELECT beat_millis FROM replica_heartbeat WHERE id = 1", Long.class);
+        replica.update("UPDATE replica_heartbeat SET beat_millis = ? WHERE id = 1", beat);
+    }
+}
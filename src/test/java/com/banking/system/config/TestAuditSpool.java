@@ -0,0 +1,36 @@
+package com.banking.system.config;
+
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.util.FileSystemUtils;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Gives every test context an audit spool directory of its own, so one context's
+ * journal is never replayed into another context's database, and deletes it when
+ * the context closes. Registered in application-test.properties.
+ */
+public class TestAuditSpool implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+    @Override
+    public void initialize(ConfigurableApplicationContext context) {
+        Path dir;
+        try {
+            dir = Files.createTempDirectory("securebank-audit-spool-");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        context.getEnvironment().getPropertySources().addFirst(
+                new MapPropertySource("testAuditSpool", Map.of("app.audit.spool-dir", dir.toString())));
+
+        // Registered before any bean, so it runs after AuditLogWriter has stopped and closed its files
+        ((DefaultListableBeanFactory) context.getBeanFactory()).registerDisposableBean("testAuditSpool",
+                () -> FileSystemUtils.deleteRecursively(dir));
+    }
+}
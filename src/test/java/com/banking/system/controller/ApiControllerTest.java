@@ -0,0 +1,126 @@
+package com.banking.system.controller;
+
+import com.banking.system.service.AccountService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.endsWith;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The JSON API through the full filter chain with real Basic credentials: ETag
+ * revalidation on the account and history reads, and 401s instead of login redirects.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ApiControllerTest {
+
+    private static final String PASSWORD = "api-password";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private AccountService accountService;
+
+    private String username;
+    private List<String> urls;
+
+    @BeforeEach
+    void createUser() {
+        username = "api-" + UUID.randomUUID();
+        jdbc.update("INSERT INTO users (username, password, role) VALUES (?, ?, 'USER')",
+                username, passwordEncoder.encode(PASSWORD));
+        Long userId = jdbc.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, username);
+        Long accountId = accountService.createAccount(userId).getId();
+        accountService.deposit(accountId, new BigDecimal("50.00"));
+        urls = List.of("/api/v1/accounts", "/api/v1/accounts/" + accountId,
+                "/api/v1/accounts/" + accountId + "/transactions");
+    }
+
+    @Test
+    void matchingIfNoneMatchIsNotModified() throws Exception {
+        for (String url : urls) {
+            MockHttpServletResponse first = read(url, null);
+            assertThat(first.getStatus()).as(url).isEqualTo(200);
+            String etag = first.getHeader(HttpHeaders.ETAG);
+            assertThat(etag).as(url).isNotBlank();
+
+            MockHttpServletResponse again = read(url, etag);
+            assertThat(again.getStatus()).as(url).isEqualTo(304);
+            assertThat(again.getContentAsByteArray()).as(url).isEmpty();
+            assertThat(again.getHeader(HttpHeaders.ETAG)).as(url).isEqualTo(etag);
+        }
+    }
+
+    @Test
+    void depositChangesTheEtag() throws Exception {
+        String[] etags = new String[urls.size()];
+        for (int i = 0; i < urls.size(); i++) {
+            etags[i] = read(urls.get(i), null).getHeader(HttpHeaders.ETAG);
+        }
+
+        mockMvc.perform(post(urls.get(2)).with(httpBasic(username, PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": 25.00, \"type\": \"DEPOSIT\"}"))
+                .andExpect(status().isCreated());
+
+        for (int i = 0; i < urls.size(); i++) {
+            MockHttpServletResponse after = read(urls.get(i), etags[i]);
+            assertThat(after.getStatus()).as(urls.get(i)).isEqualTo(200);
+            assertThat(after.getHeader(HttpHeaders.ETAG)).as(urls.get(i)).isNotBlank().isNotEqualTo(etags[i]);
+            assertThat(after.getContentAsString()).as(urls.get(i)).contains("75");
+        }
+    }
+
+    @Test
+    void missingOrWrongCredentialsAre401NotALoginRedirect() throws Exception {
+        for (String url : urls) {
+            mockMvc.perform(get(url))
+                    .andExpect(status().isUnauthorized())
+                    .andExpect(header().string(HttpHeaders.WWW_AUTHENTICATE, "Basic realm=\"SecureBank\""))
+                    .andExpect(header().doesNotExist(HttpHeaders.LOCATION));
+            mockMvc.perform(get(url).with(httpBasic(username, "wrong")))
+                    .andExpect(status().isUnauthorized())
+                    .andExpect(header().doesNotExist(HttpHeaders.LOCATION));
+        }
+        // The same request to a page still goes to the login form
+        mockMvc.perform(get("/user/dashboard"))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(header().string(HttpHeaders.LOCATION, endsWith("/login")));
+    }
+
+    private MockHttpServletResponse read(String url, String ifNoneMatch) throws Exception {
+        MockHttpServletRequestBuilder request = get(url).with(httpBasic(username, PASSWORD));
+        if (ifNoneMatch != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return mockMvc.perform(request).andReturn().getResponse();
+    }
+}
@@ -0,0 +1,142 @@
+package com.banking.system.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 64 threads changing the balance of one account at once. Every deposit and every
+ * successful withdrawal must show up in the final balance, and withdrawals must never
+ * take it below zero.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class AccountServiceConcurrencyTest {
+
+    private static final int THREADS = 64;
+    private static final int OPERATIONS_PER_THREAD = 50;
+    private static final BigDecimal ONE = new BigDecimal("1.00");
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private Long accountId;
+
+    @BeforeEach
+    void createAccount() {
+        String username = "concurrency-" + UUID.randomUUID();
+        jdbc.update("INSERT INTO users (username, password, role) VALUES (?, 'x', 'USER')", username);
+        Long userId = jdbc.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, username);
+        accountId = accountService.createAccount(userId).getId();
+    }
+
+    @Test
+    void concurrentDepositsAreAllApplied() throws Exception {
+        runConcurrently(() -> accountService.deposit(accountId, ONE));
+
+        assertThat(balance()).isEqualByComparingTo(ONE.multiply(BigDecimal.valueOf(THREADS * OPERATIONS_PER_THREAD)));
+    }
+
+    @Test
+    void concurrentWithdrawalsStopAtZero() throws Exception {
+        BigDecimal start = new BigDecimal("1000.00");
+        accountService.deposit(accountId, start);
+        AtomicInteger rejected = new AtomicInteger();
+
+        int succeeded = runConcurrently(() -> withdrawOrCountRejection(rejected));
+
+        // 3200 attempts on 1000.00: exactly 1000 can succeed
+        assertThat(succeeded).isEqualTo(1000);
+        assertThat(rejected.get()).isEqualTo(THREADS * OPERATIONS_PER_THREAD - 1000);
+        assertThat(balance()).isEqualByComparingTo(BigDecimal.ZERO);
+    }
+
+    @Test
+    void concurrentDepositsAndWithdrawalsBalance() throws Exception {
+        BigDecimal start = new BigDecimal("100.00");
+        accountService.deposit(accountId, start);
+        AtomicInteger deposits = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger thread = new AtomicInteger();
+        ThreadLocal<Boolean> depositor = ThreadLocal.withInitial(() -> thread.getAndIncrement() % 2 == 0);
+
+        int succeeded = runConcurrently(() -> {
+            if (depositor.get()) {
+                accountService.deposit(accountId, ONE);
+                deposits.incrementAndGet();
+                return true;
+            }
+            return withdrawOrCountRejection(rejected);
+        });
+
+        int withdrawals = succeeded - deposits.get();
+        BigDecimal expected = start.add(ONE.multiply(BigDecimal.valueOf(deposits.get() - withdrawals)));
+        assertThat(deposits.get()).isEqualTo(THREADS / 2 * OPERATIONS_PER_THREAD);
+        assertThat(withdrawals + rejected.get()).isEqualTo(THREADS / 2 * OPERATIONS_PER_THREAD);
+        assertThat(balance()).isEqualByComparingTo(expected);
+        assertThat(balance()).isNotNegative();
+    }
+
+    private boolean withdrawOrCountRejection(AtomicInteger rejected) {
+        try {
+            accountService.withdraw(accountId, ONE);
+            return true;
+        } catch (RuntimeException e) {
+            assertThat(e).hasMessage("Insufficient balance");
+            rejected.incrementAndGet();
+            return false;
+        }
+    }
+
+    // Releases all threads together; returns how many operations returned true
+    private int runConcurrently(Callable<Object> operation) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    int succeeded = 0;
+                    for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                        if (!Boolean.FALSE.equals(operation.call())) {
+                            succeeded++;
+                        }
+                    }
+                    return succeeded;
+                }));
+            }
+            start.countDown();
+            int succeeded = 0;
+            for (Future<Integer> result : results) {
+                succeeded += result.get(2, TimeUnit.MINUTES);
+            }
+            return succeeded;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private BigDecimal balance() {
+        return jdbc.queryForObject("SELECT balance FROM accounts WHERE id = ?", BigDecimal.class, accountId);
+    }
+}
@@ -0,0 +1,194 @@
+package com.banking.system.service;
+
+import com.banking.system.entity.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Balance history over rows posted before balance_after existed: point-in-time
+ * balances replayed from the rows (and from the last snapshot, when there is one),
+ * the backfill that fills the rows in, and the snapshots it writes for each
+ * completed day. Rows span several days and every transaction type, with two rows
+ * sharing a timestamp.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BalanceHistoryServiceTest {
+
+    private static final int DAYS = 4;
+    private static final int ROWS_PER_DAY = 6;
+    private static final Transaction.TransactionType[] TYPES = {
+            Transaction.TransactionType.DEPOSIT, Transaction.TransactionType.WITHDRAW,
+            Transaction.TransactionType.TRANSFER_IN, Transaction.TransactionType.TRANSFER_OUT
+    };
+
+    @Autowired
+    private BalanceHistoryService balanceHistory;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionIdAllocator ids;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private final LocalDate today = LocalDate.now();
+    private Long accountId;
+
+    @BeforeEach
+    void createAccount() {
+        String username = "history-" + UUID.randomUUID();
+        jdbc.update("INSERT INTO users (username, password, role) VALUES (?, 'x', 'USER')", username);
+        Long userId = jdbc.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, username);
+        accountId = accountService.createAccount(userId).getId();
+    }
+
+    @Test
+    void backfillFillsRowsAndSnapshotsCompletedDays() {
+        List<Row> rows = seed(BigDecimal.ZERO);
+        assertPointInTimeBalances(rows);
+
+        assertThat(balanceHistory.backfill()).isGreaterThanOrEqualTo(rows.size());
+
+        assertFilled(rows);
+        assertThat(snapshots()).containsExactlyEntriesOf(expectedSnapshots(rows, today));
+        assertPointInTimeBalances(rows);
+    }
+
+    @Test
+    void backfillContinuesFromTheOldestFilledRow() {
+        List<Row> rows = seed(BigDecimal.ZERO);
+        // Rows from the middle of the second day on were posted after balance_after existed
+        int firstFilled = ROWS_PER_DAY + ROWS_PER_DAY / 2;
+        for (Row row : rows.subList(firstFilled, rows.size())) {
+            jdbc.update("UPDATE transactions SET balance_after = ? WHERE id = ?", row.balanceAfter, row.id);
+        }
+        assertPointInTimeBalances(rows);
+
+        balanceHistory.backfill();
+
+        assertFilled(rows);
+        // The second day is only partly walked, so only the first day gets its snapshot here
+        assertThat(snapshots()).containsExactlyEntriesOf(expectedSnapshots(rows, today.minusDays(DAYS - 2)));
+        assertPointInTimeBalances(rows);
+    }
+
+    @Test
+    void unfilledRowsReplayFromTheLastSnapshot() {
+        // Older history is only known through its end-of-day snapshot
+        BigDecimal opening = new BigDecimal("500.00");
+        LocalDate snapshotDay = today.minusDays(DAYS);
+        jdbc.update("INSERT INTO balance_snapshots (account_id, snapshot_date, balance, transaction_id) VALUES (?, ?, ?, ?)",
+                accountId, snapshotDay, opening, 0L);
+        List<Row> rows = seed(opening);
+
+        assertPointInTimeBalances(rows);
+
+        balanceHistory.backfill();
+
+        assertFilled(rows);
+        assertPointInTimeBalances(rows);
+    }
+
+    // Rows over the last DAYS days, today included; the account's balance is set to the result
+    private List<Row> seed(BigDecimal opening) {
+        long[] block = ids.allocate(DAYS * ROWS_PER_DAY);
+        List<Row> rows = new ArrayList<>();
+        BigDecimal balance = opening;
+        int n = 0;
+        for (int d = DAYS - 1; d >= 0; d--) {
+            LocalDate day = today.minusDays(d);
+            for (int i = 0; i < ROWS_PER_DAY; i++, n++) {
+                // The first two rows of each day share a timestamp; id breaks the tie
+                LocalDateTime at = day.atStartOfDay().plusMinutes(Math.max(1, i) * 7L);
+                Transaction.TransactionType type = TYPES[n % TYPES.length];
+                BigDecimal amount = BigDecimal.valueOf(type.isCredit() ? 100 + n : 10 + n, 0).setScale(2);
+                balance = type.isCredit() ? balance.add(amount) : balance.subtract(amount);
+                rows.add(new Row(block[n], at, amount, type, balance));
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO transactions (id, amount, type, timestamp, account_id) VALUES (?, ?, ?, ?, ?)",
+                rows.stream().map(r -> new Object[] {r.id, r.amount, r.type.name(), Timestamp.valueOf(r.at), accountId})
+                        .toList());
+        jdbc.update("UPDATE accounts SET balance = ? WHERE id = ?", balance, accountId);
+        return rows;
+    }
+
+    // An account with no row at or before the time reads as zero, snapshot or not
+    private void assertPointInTimeBalances(List<Row> rows) {
+        assertThat(balanceHistory.getBalanceAt(accountId, rows.get(0).at.minusMinutes(1))).isZero();
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            Row lastAtSameTime = rows.stream().filter(r -> r.at.equals(row.at)).reduce((a, b) -> b).orElseThrow();
+            BigDecimal before = rows.stream().filter(r -> r.at.isBefore(row.at))
+                    .reduce((a, b) -> b).map(r -> r.balanceAfter).orElse(BigDecimal.ZERO);
+            assertThat(balanceHistory.getBalanceAt(accountId, row.at)).as("balance at row %d", i)
+                    .isEqualByComparingTo(lastAtSameTime.balanceAfter);
+            assertThat(balanceHistory.getBalanceBefore(accountId, row.at)).as("balance before row %d", i)
+                    .isEqualByComparingTo(before);
+        }
+    }
+
+    private void assertFilled(List<Row> rows) {
+        for (Row row : rows) {
+            BigDecimal stored = jdbc.queryForObject("SELECT balance_after FROM transactions WHERE id = ?",
+                    BigDecimal.class, row.id);
+            assertThat(stored).as("balance_after of %d", row.id).isEqualByComparingTo(row.balanceAfter);
+        }
+    }
+
+    // Snapshot date -> "balance@transaction id"
+    private Map<LocalDate, String> snapshots() {
+        Map<LocalDate, String> snapshots = new LinkedHashMap<>();
+        jdbc.query("SELECT snapshot_date, balance, transaction_id FROM balance_snapshots " +
+                        "WHERE account_id = ? ORDER BY snapshot_date", rs -> {
+            snapshots.put(rs.getDate(1).toLocalDate(), rs.getBigDecimal(2).setScale(2) + "@" + rs.getLong(3));
+        }, accountId);
+        return snapshots;
+    }
+
+    // Last row of every day with rows before the given day
+    private static Map<LocalDate, String> expectedSnapshots(List<Row> rows, LocalDate before) {
+        Map<LocalDate, String> expected = new LinkedHashMap<>();
+        for (Row row : rows) {
+            if (row.at.toLocalDate().isBefore(before)) {
+                expected.put(row.at.toLocalDate(), row.balanceAfter.setScale(2) + "@" + row.id);
+            }
+        }
+        return expected;
+    }
+
+    private static final class Row {
+        private final long id;
+        private final LocalDateTime at;
+        private final BigDecimal amount;
+        private final Transaction.TransactionType type;
+        private final BigDecimal balanceAfter;
+
+        private Row(long id, LocalDateTime at, BigDecimal amount, Transaction.TransactionType type,
+                    BigDecimal balanceAfter) {
+            this.id = id;
+            this.at = at;
+            this.amount = amount;
+            this.type = type;
+            this.balanceAfter = balanceAfter;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.banking.system.service;
+
+import com.banking.system.entity.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The ledger engine with every account routed to it, and balances also changed
+ * behind its back: withdrawals covered by the stored balance must go through even
+ * when the shard's held balance says otherwise, and the stored balance and rows
+ * must stay consistent.
+ */
+@SpringBootTest(properties = "app.ledger.enabled=true")
+@ActiveProfiles("test")
+class LedgerEngineTest {
+
+    private static final BigDecimal HUNDRED = new BigDecimal("100.00");
+
+    @Autowired
+    private LedgerEngine ledgerEngine;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private Long accountId;
+
+    @BeforeEach
+    void createAccount() {
+        String username = "ledger-" + UUID.randomUUID();
+        jdbc.update("INSERT INTO users (username, password, role) VALUES (?, 'x', 'USER')", username);
+        Long userId = jdbc.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, username);
+        accountId = accountService.createAccount(userId).getId();
+    }
+
+    @Test
+    void withdrawalCoveredByAnOutsideDepositIsAccepted() {
+        ledgerEngine.apply(accountId, HUNDRED, Transaction.TransactionType.DEPOSIT);
+        jdbc.update("UPDATE accounts SET balance = balance + ? WHERE id = ?", HUNDRED, accountId);
+
+        BigDecimal after = ledgerEngine.apply(accountId, new BigDecimal("150.00"), Transaction.TransactionType.WITHDRAW);
+
+        assertThat(after).isEqualByComparingTo("50.00");
+        assertThat(storedBalance()).isEqualByComparingTo("50.00");
+        // And the engine carries on from the refreshed balance
+        assertThat(ledgerEngine.apply(accountId, HUNDRED, Transaction.TransactionType.DEPOSIT))
+                .isEqualByComparingTo("150.00");
+        assertThat(storedBalance()).isEqualByComparingTo("150.00");
+    }
+
+    @Test
+    void withdrawalBeyondTheStoredBalanceIsStillRefused() {
+        ledgerEngine.apply(accountId, HUNDRED, Transaction.TransactionType.DEPOSIT);
+        jdbc.update("UPDATE accounts SET balance = balance - ? WHERE id = ?", new BigDecimal("40.00"), accountId);
+
+        assertThatThrownBy(() -> ledgerEngine.apply(accountId, HUNDRED, Transaction.TransactionType.WITHDRAW))
+                .hasMessage("Insufficient balance");
+        assertThat(storedBalance()).isEqualByComparingTo("60.00");
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM transactions WHERE account_id = ? AND type = 'WITHDRAW'",
+                Integer.class, accountId)).isZero();
+    }
+
+    private BigDecimal storedBalance() {
+        return jdbc.queryForObject("SELECT balance FROM accounts WHERE id = ?", BigDecimal.class, accountId);
+    }
+}
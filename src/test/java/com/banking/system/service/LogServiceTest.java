@@ -0,0 +1,57 @@
+package com.banking.system.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import java.io.StringWriter;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The audit log CSV export: cells a spreadsheet would run as a formula are
+ * written as text, and cells with commas or quotes are still quoted.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class LogServiceTest {
+
+    @Autowired
+    private LogService logService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void exportNeutralisesFormulaCells() throws Exception {
+        String username = "@export-" + UUID.randomUUID();
+        jdbc.update("INSERT INTO users (username, password, role) VALUES (?, 'x', 'USER')", username);
+        Long userId = jdbc.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, username);
+        List<String> actions = List.of("=HYPERLINK(\"http://example.com\")", "+1+2", "-2+3", "@SUM(A1:A2)",
+                "=1,2", "Deposit of 10.00");
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 12, 0);
+        for (int i = 0; i < actions.size(); i++) {
+            jdbc.update("INSERT INTO logs (action, timestamp, user_id) VALUES (?, ?, ?)",
+                    actions.get(i), Timestamp.valueOf(start.plusMinutes(i)), userId);
+        }
+        StringWriter csv = new StringWriter();
+
+        logService.exportLogsCsv(username, null, null, csv);
+
+        // Newest first
+        assertThat(csv.toString().lines().map(line -> line.substring(line.indexOf(',', line.indexOf(',') + 1) + 1)))
+                .containsExactly(
+                        "username,action",
+                        "'" + username + ",Deposit of 10.00",
+                        "'" + username + ",\"'=1,2\"",
+                        "'" + username + ",'@SUM(A1:A2)",
+                        "'" + username + ",'-2+3",
+                        "'" + username + ",'+1+2",
+                        "'" + username + ",\"'=HYPERLINK(\"\"http://example.com\"\")\"");
+    }
+}
@@ -0,0 +1,183 @@
+package com.banking.system.service;
+
+import com.banking.system.config.BankUserDetails;
+import com.banking.system.entity.Account;
+import com.banking.system.entity.Transaction;
+import com.banking.system.entity.User;
+import com.banking.system.repository.AccountRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Account deletes that lose a race with a balance change. A deposit landing between
+ * the balance check and the delete must make the delete retry and refuse, a conflict
+ * on every attempt must end in an error once the budget is spent, and conflicts must
+ * be counted against the account.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class OptimisticRetryTest {
+
+    private static final BigDecimal DEPOSIT = new BigDecimal("100.00");
+    private static final int DELETE_RACES = 200;
+
+    @Autowired
+    private OptimisticRetry retry;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.optimistic.max-attempts:5}")
+    private int maxAttempts;
+
+    private BankUserDetails owner;
+
+    @BeforeEach
+    void createOwner() {
+        String username = "retry-" + UUID.randomUUID();
+        jdbc.update("INSERT INTO users (username, password, role) VALUES (?, 'x', 'USER')", username);
+        Long userId = jdbc.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, username);
+        owner = new BankUserDetails(userId, username, "", User.Role.USER);
+    }
+
+    // deleteAccount's steps, with a deposit committed by another thread after the first read
+    @Test
+    void deleteOverConcurrentDepositRetriesAndRefuses() {
+        Long accountId = accountService.createAccount(owner.getId()).getId();
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> retry.run(accountId, () -> {
+            Account account = accountService.getAccountById(accountId);
+            if (attempts.incrementAndGet() == 1) {
+                CompletableFuture.runAsync(() -> transactionService
+                        .createTransaction(accountId, DEPOSIT, Transaction.TransactionType.DEPOSIT)).join();
+            }
+            if (account.getBalance().compareTo(BigDecimal.ZERO) > 0) {
+                throw new RuntimeException("Cannot delete account with balance > 0");
+            }
+            accountRepository.delete(account);
+            return null;
+        })).hasMessage("Cannot delete account with balance > 0");
+
+        assertThat(attempts.get()).isEqualTo(2);
+        assertThat(count("bank.account.conflicts", accountId)).isEqualTo(1);
+        assertThat(accountRepository.existsById(accountId)).isTrue();
+    }
+
+    @Test
+    void conflictOnEveryAttemptUsesUpTheBudget() {
+        Long accountId = accountService.createAccount(owner.getId()).getId();
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> retry.run(accountId, () -> {
+            attempts.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException(Account.class, accountId);
+        }))
+                .isNotInstanceOf(ObjectOptimisticLockingFailureException.class)
+                .hasMessage("Account is being updated by another request. Please try again.");
+
+        assertThat(attempts.get()).isEqualTo(maxAttempts);
+        assertThat(count("bank.account.conflicts", accountId)).isEqualTo(maxAttempts);
+        assertThat(count("bank.account.retries", accountId)).isEqualTo(maxAttempts - 1);
+        assertThat(count("bank.account.retries.exhausted", accountId)).isEqualTo(1);
+    }
+
+    @Test
+    void retryNeedsItsOwnTransaction() {
+        Long accountId = accountService.createAccount(owner.getId()).getId();
+
+        assertThatThrownBy(() -> new TransactionTemplate(transactionManager)
+                .execute(status -> retry.run(accountId, () -> null)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    // Whichever of the delete and the deposit goes first, the other one must fail
+    @Test
+    void deleteRacingDepositNeverTakesTheDeposit() throws Exception {
+        int deleted = 0;
+        int kept = 0;
+        for (int i = 0; i < DELETE_RACES; i++) {
+            Long accountId = accountService.createAccount(owner.getId()).getId();
+            CyclicBarrier start = new CyclicBarrier(2);
+            CompletableFuture<String> delete = CompletableFuture.supplyAsync(() -> {
+                SecurityContextHolder.getContext().setAuthentication(
+                        new UsernamePasswordAuthenticationToken(owner, null, owner.getAuthorities()));
+                try {
+                    start.await();
+                    accountService.deleteAccount(accountId);
+                    return null;
+                } catch (Exception e) {
+                    return e.getMessage();
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+            });
+            CompletableFuture<String> deposit = CompletableFuture.supplyAsync(() -> {
+                try {
+                    start.await();
+                    transactionService.createTransaction(accountId, DEPOSIT, Transaction.TransactionType.DEPOSIT);
+                    return null;
+                } catch (Exception e) {
+                    return e.getMessage();
+                }
+            });
+            String deleteFailure = delete.get();
+            String depositFailure = deposit.get();
+            List<BigDecimal> balance = jdbc.queryForList("SELECT balance FROM accounts WHERE id = ?",
+                    BigDecimal.class, accountId);
+
+            assertThat(deleteFailure == null && depositFailure == null)
+                    .as("account %d deleted with a deposit in it", accountId).isFalse();
+            if (deleteFailure == null) {
+                assertThat(balance).isEmpty();
+                deleted++;
+            } else {
+                assertThat(depositFailure).as("delete failed with %s", deleteFailure).isNull();
+                assertThat(balance).singleElement().satisfies(b -> assertThat(b).isEqualByComparingTo(DEPOSIT));
+                kept++;
+            }
+        }
+        assertThat(deleted + kept).isEqualTo(DELETE_RACES);
+    }
+
+    private long count(String meter, Long accountId) {
+        Counter counter = meterRegistry.find(meter).tag("account", String.valueOf(accountId)).counter();
+        return counter == null ? 0 : (long) counter.count();
+    }
+}
@@ -0,0 +1,202 @@
+package com.banking.system.service;
+
+import com.banking.system.entity.Account;
+import com.banking.system.entity.Transaction;
+import com.banking.system.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Hibernate's second-level cache for Account and the query cache for findByUsername.
+ * A balance read right after each kind of write must match the database while other
+ * accounts stay cached, a cached "no such user" must not hide a newly onboarded user,
+ * and readers racing deposits must never see a balance older than the last commit.
+ */
+@SpringBootTest(properties = {
+        // MySQL's default; under H2's READ COMMITTED a commit is not always visible to the next read
+        "spring.datasource.hikari.transaction-isolation=TRANSACTION_REPEATABLE_READ",
+        "app.ledger.enabled=true",
+        "app.ledger.accounts=" + SecondLevelCacheTest.LEDGER_ACCOUNT_ID
+})
+@ActiveProfiles("test")
+class SecondLevelCacheTest {
+
+    static final long LEDGER_ACCOUNT_ID = 900_000_001L;
+
+    private static final String ACCOUNT_REGION = Account.class.getName();
+    private static final BigDecimal AMOUNT = new BigDecimal("100.00");
+    private static final int READERS = 4;
+    private static final int RACED_DEPOSITS = 2000;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private LedgerEngine ledgerEngine;
+
+    @Autowired
+    private TransactionImportService importService;
+
+    @Autowired
+    private UserOnboardingService onboardingService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Long owner;
+    private final List<Account> accounts = new ArrayList<>();
+
+    @BeforeEach
+    void createAccounts() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        String username = "cache-" + UUID.randomUUID();
+        jdbc.update("INSERT INTO users (username, password, role) VALUES (?, 'x', 'USER')", username);
+        owner = jdbc.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, username);
+        for (int a = 0; a < 3; a++) {
+            Account account = accountService.createAccount(owner);
+            accountService.deposit(account.getId(), new BigDecimal("1000.00"));
+            accounts.add(account);
+        }
+    }
+
+    @Test
+    void everyWritePathRefreshesOnlyTheAccountItChanged() throws Exception {
+        Long account = accounts.get(0).getId();
+        Account second = accounts.get(1);
+        Long other = accounts.get(2).getId();
+        jdbc.update("INSERT INTO accounts (id, account_number, balance, version, user_id) VALUES (?, ?, ?, 0, ?)",
+                LEDGER_ACCOUNT_ID, "CACHE-LEDGER", new BigDecimal("1000.00"), owner);
+
+        warm(account);
+        warm(other);
+        transactionService.createTransaction(account, AMOUNT, Transaction.TransactionType.DEPOSIT);
+        expectFresh(account, "deposit");
+        assertThat(readIsHit(other)).as("a deposit to another account evicted this one").isTrue();
+
+        warm(account);
+        transactionService.createTransaction(account, AMOUNT, Transaction.TransactionType.WITHDRAW);
+        expectFresh(account, "withdrawal");
+
+        warm(account);
+        warm(second.getId());
+        transactionService.transfer(account, second.getAccountNumber(), AMOUNT, null);
+        expectFresh(account, "transfer out");
+        expectFresh(second.getId(), "transfer in");
+
+        warm(LEDGER_ACCOUNT_ID);
+        ledgerEngine.apply(LEDGER_ACCOUNT_ID, AMOUNT, Transaction.TransactionType.DEPOSIT);
+        expectFresh(LEDGER_ACCOUNT_ID, "ledger deposit");
+
+        warm(account);
+        String csv = "account_number,type,amount\n" + accounts.get(0).getAccountNumber() + ",DEPOSIT," + AMOUNT + "\n";
+        importService.importTransactions(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                TransactionImportService.Format.CSV, new StringWriter(), true);
+        expectFresh(account, "import");
+    }
+
+    @Test
+    void cachedMissingUserDoesNotHideOnboardedUser() throws Exception {
+        String username = "onboarded" + System.nanoTime();
+        long queryHits = statistics.getQueryCacheHitCount();
+        assertThat(userRepository.findByUsername(username)).isEmpty();
+        assertThat(userRepository.findByUsername(username)).isEmpty();
+        assertThat(statistics.getQueryCacheHitCount()).as("findByUsername result cached").isGreaterThan(queryHits);
+
+        onboardingService.onboard(new ByteArrayInputStream(("username,password\n" + username + ",Passw0rd-1\n")
+                .getBytes(StandardCharsets.UTF_8)), new StringWriter(), true);
+
+        assertThat(userRepository.findByUsername(username)).isPresent();
+    }
+
+    // Readers note the last committed balance before each read, so anything lower is stale
+    @Test
+    void readersRacingDepositsNeverSeeAnOlderBalance() throws Exception {
+        Long account = accounts.get(0).getId();
+        AtomicReference<BigDecimal> committed = new AtomicReference<>(accountService.getAccountById(account).getBalance());
+        AtomicReference<String> stale = new AtomicReference<>();
+        long hitsBefore = statistics.getDomainDataRegionStatistics(ACCOUNT_REGION).getHitCount();
+        ExecutorService readers = Executors.newFixedThreadPool(READERS);
+        AtomicLong reads = new AtomicLong();
+        List<Future<?>> running = new ArrayList<>();
+        try {
+            for (int r = 0; r < READERS; r++) {
+                running.add(readers.submit(() -> {
+                    while (!readers.isShutdown()) {
+                        BigDecimal floor = committed.get();
+                        BigDecimal seen = accountService.getAccountById(account).getBalance();
+                        if (seen.compareTo(floor) < 0) {
+                            stale.compareAndSet(null, "read " + seen + " after " + floor + " was committed");
+                        }
+                        reads.incrementAndGet();
+                    }
+                }));
+            }
+            for (int i = 0; i < RACED_DEPOSITS; i++) {
+                committed.set(transactionService.createTransaction(account, AMOUNT, Transaction.TransactionType.DEPOSIT)
+                        .getBalanceAfter());
+            }
+        } finally {
+            readers.shutdown();
+        }
+        for (Future<?> reader : running) {
+            reader.get();
+        }
+
+        assertThat(stale.get()).isNull();
+        assertThat(reads.get()).isPositive();
+        assertThat(statistics.getDomainDataRegionStatistics(ACCOUNT_REGION).getHitCount())
+                .as("racing reads hit the cache, or the check proves nothing")
+                .isGreaterThan(hitsBefore);
+    }
+
+    private void warm(Long accountId) {
+        accountService.getAccountById(accountId);
+        assertThat(readIsHit(accountId)).as("account %d cached after loading it", accountId).isTrue();
+    }
+
+    private boolean readIsHit(Long accountId) {
+        long hits = statistics.getDomainDataRegionStatistics(ACCOUNT_REGION).getHitCount();
+        accountService.getAccountById(accountId);
+        return statistics.getDomainDataRegionStatistics(ACCOUNT_REGION).getHitCount() > hits;
+    }
+
+    private void expectFresh(Long accountId, String write) {
+        BigDecimal stored = jdbc.queryForObject("SELECT balance FROM accounts WHERE id = ?", BigDecimal.class, accountId);
+        BigDecimal byId = accountService.getAccountById(accountId).getBalance();
+        BigDecimal listed = accountService.getAccountsByUserId(owner).stream()
+                .filter(a -> a.getId().equals(accountId)).findFirst().orElseThrow().getBalance();
+        assertThat(byId).as("balance by id after %s", write).isEqualByComparingTo(stored);
+        assertThat(listed).as("listed balance after %s", write).isEqualByComparingTo(stored);
+    }
+}
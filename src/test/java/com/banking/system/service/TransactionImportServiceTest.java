@@ -0,0 +1,86 @@
+package com.banking.system.service;
+
+import com.banking.system.dto.ImportResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * CSV import of one chunk that mixes good lines with bad ones: quoted fields are
+ * read as RFC 4180 fields, and a line that is malformed or whose amount or
+ * resulting balance does not fit the columns is rejected on its own while the
+ * rest of the chunk posts.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class TransactionImportServiceTest {
+
+    private static final BigDecimal NEAR_MAX = new BigDecimal("999999999999999999999999999999999999.00");
+
+    @Autowired
+    private TransactionImportService importService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private String account;
+    private String fullAccount;
+
+    @BeforeEach
+    void createAccounts() {
+        String username = "import-" + UUID.randomUUID();
+        jdbc.update("INSERT INTO users (username, password, role) VALUES (?, 'x', 'USER')", username);
+        Long userId = jdbc.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, username);
+        account = accountService.createAccount(userId).getAccountNumber();
+        fullAccount = accountService.createAccount(userId).getAccountNumber();
+        jdbc.update("UPDATE accounts SET balance = ? WHERE account_number = ?", NEAR_MAX, fullAccount);
+    }
+
+    @Test
+    void badLinesAreRejectedOneByOne() throws Exception {
+        String file = "account_number,type,amount\n" +
+                "\"" + account + "\",\"DEPOSIT\",\"100.00\"\n" +           // line 2
+                " \"" + account + "\" , deposit , \"2.50\"\n" +            // line 3
+                account + ",DEPOSIT,\"1,000.00\"\n" +                      // line 4: comma inside quotes, not a number
+                account + ",\"DEPOSIT,10.00\n" +                           // line 5: quote left open
+                account + ",DEPOSIT,1E+40\n" +                             // line 6
+                fullAccount + ",DEPOSIT,1.00\n" +                          // line 7
+                fullAccount + ",WITHDRAW,0.50\n" +                         // line 8
+                "\"" + account + "\",WITHDRAW,\"40.00\"\n";                // line 9
+        StringWriter report = new StringWriter();
+
+        ImportResult result = importService.importTransactions(new ByteArrayInputStream(file.getBytes(StandardCharsets.UTF_8)),
+                TransactionImportService.Format.CSV, report, true);
+
+        assertThat(result.getAccepted()).isEqualTo(4);
+        assertThat(result.getRejected()).isEqualTo(4);
+        assertThat(report.toString().lines()).containsExactly(
+                "line,status,account,type,amount,message",
+                "4,REJECTED," + account + ",DEPOSIT,\"1,000.00\",Invalid amount",
+                "5,REJECTED,,,,Unterminated quoted field",
+                "6,REJECTED," + account + ",DEPOSIT,1E+40,Amount is too large",
+                "7,REJECTED," + fullAccount + ",DEPOSIT,1.00,Balance would be too large");
+
+        assertThat(balance(account)).isEqualByComparingTo("62.50");
+        assertThat(balance(fullAccount)).isEqualByComparingTo(NEAR_MAX.subtract(new BigDecimal("0.50")));
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM transactions t JOIN accounts a ON t.account_id = a.id " +
+                "WHERE a.account_number IN (?, ?)", Integer.class, account, fullAccount)).isEqualTo(4);
+    }
+
+    private BigDecimal balance(String accountNumber) {
+        return jdbc.queryForObject("SELECT balance FROM accounts WHERE account_number = ?", BigDecimal.class, accountNumber);
+    }
+}
@@ -0,0 +1,147 @@
+package com.banking.system.service;
+
+import com.banking.system.entity.Account;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Transfers among a few accounts from many threads, so opposite transfers on the
+ * same pair overlap all the time. Money must be conserved, each account's balance
+ * must match its ledger legs, and no transfer may fail on a deadlock or lock timeout.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class TransferConcurrencyTest {
+
+    private static final int THREADS = 32;
+    private static final int TRANSFERS_PER_THREAD = 50;
+    private static final int ACCOUNTS = 8;
+    private static final BigDecimal START = new BigDecimal("100.00");
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private final List<Account> accounts = new ArrayList<>();
+
+    @BeforeEach
+    void createAccounts() {
+        String username = "transfers-" + UUID.randomUUID();
+        jdbc.update("INSERT INTO users (username, password, role) VALUES (?, 'x', 'USER')", username);
+        Long userId = jdbc.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, username);
+        for (int a = 0; a < ACCOUNTS; a++) {
+            Account account = accountService.createAccount(userId);
+            accountService.deposit(account.getId(), START);
+            accounts.add(account);
+        }
+    }
+
+    @Test
+    void concurrentTransfersConserveMoneyWithoutDeadlocks() throws Exception {
+        AtomicInteger lockFailures = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    int posted = 0;
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                        int from = random.nextInt(ACCOUNTS);
+                        int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                        BigDecimal amount = BigDecimal.valueOf(random.nextInt(1, 5_000), 2);
+                        try {
+                            transactionService.transfer(accounts.get(from).getId(),
+                                    accounts.get(to).getAccountNumber(), amount, null);
+                            posted++;
+                        } catch (ConcurrencyFailureException e) {
+                            lockFailures.incrementAndGet();
+                        } catch (RuntimeException e) {
+                            assertThat(e).hasMessage("Insufficient balance");
+                            rejected.incrementAndGet();
+                        }
+                    }
+                    return posted;
+                }));
+            }
+            start.countDown();
+            int posted = 0;
+            for (Future<Integer> result : results) {
+                posted += result.get(2, TimeUnit.MINUTES);
+            }
+
+            assertThat(lockFailures.get()).isZero();
+            assertThat(posted + rejected.get()).isEqualTo(THREADS * TRANSFERS_PER_THREAD);
+            assertThat(legs("TRANSFER_OUT")).isEqualTo(posted);
+            assertThat(legs("TRANSFER_IN")).isEqualTo(posted);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (Account account : accounts) {
+            BigDecimal balance = balance(account.getId());
+            assertThat(balance).isNotNegative();
+            assertThat(balance).as("balance of account %d against its legs", account.getId())
+                    .isEqualByComparingTo(START.add(net(account.getId())));
+            total = total.add(balance);
+        }
+        assertThat(total).isEqualByComparingTo(START.multiply(BigDecimal.valueOf(ACCOUNTS)));
+    }
+
+    @Test
+    void insufficientBalanceRollsBackBothLegs() {
+        Account from = accounts.get(ACCOUNTS - 1);
+        Account to = accounts.get(0);
+
+        assertThatThrownBy(() -> transactionService.transfer(from.getId(), to.getAccountNumber(),
+                START.add(BigDecimal.ONE), null))
+                .hasMessage("Insufficient balance");
+
+        assertThat(balance(from.getId())).isEqualByComparingTo(START);
+        assertThat(balance(to.getId())).isEqualByComparingTo(START);
+        assertThat(legs("TRANSFER_OUT") + legs("TRANSFER_IN")).isZero();
+    }
+
+    private int legs(String type) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM transactions t JOIN accounts a ON a.id = t.account_id"
+                + " WHERE a.user_id = ? AND t.type = ?", Integer.class, accounts.get(0).getUser().getId(), type);
+    }
+
+    private BigDecimal net(Long accountId) {
+        return jdbc.queryForObject("SELECT COALESCE(SUM(CASE WHEN type = 'TRANSFER_IN' THEN amount ELSE -amount END), 0)"
+                + " FROM transactions WHERE account_id = ? AND type IN ('TRANSFER_IN', 'TRANSFER_OUT')",
+                BigDecimal.class, accountId);
+    }
+
+    private BigDecimal balance(Long accountId) {
+        return jdbc.queryForObject("SELECT balance FROM accounts WHERE id = ?", BigDecimal.class, accountId);
+    }
+}
@@ -0,0 +1,79 @@
+package com.banking.system.service;
+
+import com.banking.system.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Evictions racing a load: a row read before a role change or delete must not be
+ * cached, whether the eviction lands while the load runs or the load runs between
+ * the eviction and the commit of the change.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class UserCacheTest {
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final String username = "cache-" + UUID.randomUUID();
+    private final AtomicReference<User.Role> storedRole = new AtomicReference<>(User.Role.USER);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void loadOverlappingAnEvictionIsNotCached() {
+        Function<String, Optional<User>> slowLoader = name -> {
+            Optional<User> row = load(name);
+            // The role changes and is evicted after this row was read
+            storedRole.set(User.Role.ADMIN);
+            userCache.evict(name);
+            return row;
+        };
+
+        assertThat(userCache.get(username, slowLoader).orElseThrow().getRole()).isEqualTo(User.Role.USER);
+
+        assertThat(userCache.get(username, this::load).orElseThrow().getRole()).isEqualTo(User.Role.ADMIN);
+        assertThat(loads).hasValue(2);
+        userCache.get(username, this::load);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void loadBetweenEvictionAndCommitIsDroppedOnCommit() {
+        userCache.get(username, this::load);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            userCache.evict(username);
+            // Another request reads the row before the change commits
+            assertThat(userCache.get(username, this::load).orElseThrow().getRole()).isEqualTo(User.Role.USER);
+            storedRole.set(User.Role.ADMIN);
+        });
+
+        assertThat(userCache.get(username, this::load).orElseThrow().getRole()).isEqualTo(User.Role.ADMIN);
+        assertThat(loads).hasValue(3);
+    }
+
+    private Optional<User> load(String name) {
+        loads.incrementAndGet();
+        User user = new User();
+        user.setId(1L);
+        user.setUsername(name);
+        user.setPassword("x");
+        user.setRole(storedRole.get());
+        return Optional.of(user);
+    }
+}
@@ -0,0 +1,78 @@
+package com.banking.system.service;
+
+import com.banking.system.dto.OnboardingResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bulk onboarding with chunks smaller than the file: a username is rejected when
+ * it is already in the database or appears earlier in the file, in the same chunk
+ * or an earlier one and in any letter case. Every created user gets one account
+ * and a hash of their own password.
+ */
+@SpringBootTest(properties = "app.onboarding.chunk-size=" + UserOnboardingServiceTest.CHUNK_SIZE)
+@ActiveProfiles("test")
+class UserOnboardingServiceTest {
+
+    static final int CHUNK_SIZE = 3;
+
+    @Autowired
+    private UserOnboardingService onboardingService;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void duplicatesAreRejectedAndEveryPasswordIsHashed() throws Exception {
+        String prefix = "onboard-" + UUID.randomUUID() + "-";
+        jdbc.update("INSERT INTO users (username, password, role) VALUES (?, 'x', 'USER')", prefix + "existing");
+
+        String file = "username,password\n" +
+                prefix + "alice,pass-alice\n" +      // line 2, chunk 1
+                prefix + "ALICE,pass-other\n" +      // line 3, same chunk
+                prefix + "bob,pass-bob\n" +          // line 4
+                prefix + "carol,pass-carol\n" +      // line 5, chunk 2
+                prefix + "Bob,pass-other\n" +        // line 6, earlier chunk
+                prefix + "existing,pass-other\n" +   // line 7, in the database
+                prefix + "dave,pass-dave\n";         // line 8, chunk 3
+        StringWriter report = new StringWriter();
+
+        OnboardingResult result = onboardingService.onboard(
+                new ByteArrayInputStream(file.getBytes(StandardCharsets.UTF_8)), report, false);
+
+        assertThat(result.getLines()).isEqualTo(7);
+        assertThat(result.getCreated()).isEqualTo(4);
+        assertThat(result.getRejected()).isEqualTo(3);
+        assertThat(report.toString().lines()).contains(
+                "3,REJECTED," + prefix + "ALICE,,Duplicate username in file",
+                "6,REJECTED," + prefix + "Bob,,Duplicate username in file",
+                "7,REJECTED," + prefix + "existing,,Username already exists");
+
+        for (String name : List.of("alice", "bob", "carol", "dave")) {
+            String username = prefix + name;
+            String hash = jdbc.queryForObject("SELECT password FROM users WHERE username = ?", String.class, username);
+            assertThat(hash).as(username).isNotEqualTo("pass-" + name);
+            assertThat(passwordEncoder.matches("pass-" + name, hash)).as(username).isTrue();
+            assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM accounts a JOIN users u ON a.user_id = u.id " +
+                    "WHERE u.username = ?", Integer.class, username)).as(username).isEqualTo(1);
+        }
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM users WHERE LOWER(username) LIKE ?",
+                Integer.class, prefix.toLowerCase() + "%")).isEqualTo(5);
+        assertThat(jdbc.queryForObject("SELECT password FROM users WHERE username = ?", String.class,
+                prefix + "existing")).isEqualTo("x");
+    }
+}